@@ -0,0 +1,106 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hybris.domain;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import de.hybris.platform.core.PK;
+import org.springframework.util.Assert;
+
+/**
+ * A page of models read in ascending {@link PK} order starting after a given {@link PK}. Unlike an offset based
+ * {@link org.springframework.data.domain.Page} the next page is looked up by the {@link PK} of the last model on this
+ * page, so reading a page costs the same no matter how deep the client pages.
+ *
+ * @author Kamill Sokol
+ * @param <T> the type of the models
+ */
+public class KeysetPage<T> implements Iterable<T> {
+
+	private final List<T> content;
+	private final PK nextCursor;
+
+	/**
+	 * Creates a new {@link KeysetPage}.
+	 *
+	 * @param content must not be {@literal null}.
+	 * @param nextCursor the {@link PK} to start the next page after, {@literal null} if there is no next page.
+	 */
+	public KeysetPage(List<T> content, PK nextCursor) {
+
+		Assert.notNull(content, "Content must not be null!");
+
+		this.content = Collections.unmodifiableList(content);
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * Returns the models of this page.
+	 *
+	 * @return will never be {@literal null}.
+	 */
+	public List<T> getContent() {
+		return content;
+	}
+
+	/**
+	 * Returns the {@link PK} to pass as {@code lastSeen} to read the next page or {@literal null} if there is no next
+	 * page.
+	 *
+	 * @return
+	 */
+	public PK getNextCursor() {
+		return nextCursor;
+	}
+
+	/**
+	 * Returns whether there might be a next page. As pages are read without counting the remaining models the next page
+	 * can turn out to be empty if the last page was completely filled.
+	 *
+	 * @return
+	 */
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+
+	/**
+	 * Returns whether this page has any content.
+	 *
+	 * @return
+	 */
+	public boolean hasContent() {
+		return !content.isEmpty();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Iterable#iterator()
+	 */
+	public Iterator<T> iterator() {
+		return content.iterator();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("KeysetPage with %d models, next cursor %s", content.size(), nextCursor);
+	}
+}
@@ -0,0 +1,5 @@
+/**
+ * Hybris specific domain classes.
+ */
+package org.springframework.data.hybris.domain;
+
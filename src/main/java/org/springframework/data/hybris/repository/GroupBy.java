@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hybris.repository;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to group the results of a query method returning a {@link java.util.Map} by an attribute, e.g.
+ * 
+ * <pre>
+ * &#064;GroupBy(&quot;status&quot;)
+ * Map&lt;OrderStatus, Long&gt; countByUser(UserModel user);
+ * 
+ * &#064;GroupBy(&quot;status&quot;)
+ * Map&lt;OrderStatus, List&lt;PK&gt;&gt; findByUser(UserModel user);
+ * </pre>
+ * 
+ * Each row of the query is read as key and value, no model is instantiated for the grouped items. Maps with a
+ * collection value type collect all values of a key, other maps expect a single row per key.
+ * 
+ * @author Kamill Sokol
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface GroupBy {
+
+	/**
+	 * Defines the property to group a derived query by, e.g. {@code status} or {@code catalogVersion.catalog}. Queries
+	 * declared through {@link Query} have to select the key and the value themselves.
+	 */
+	String value() default "";
+}
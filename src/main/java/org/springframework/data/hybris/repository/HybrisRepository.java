@@ -18,8 +18,10 @@ package org.springframework.data.hybris.repository;
 import java.io.Serializable;
 import java.util.List;
 
+import de.hybris.platform.core.PK;
 import de.hybris.platform.core.model.ItemModel;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.hybris.domain.KeysetPage;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
@@ -43,9 +45,12 @@ public interface HybrisRepository<T extends ItemModel, ID extends Serializable>
 	 */
 	List<T> findAll(Sort sort);
 
-	/*
-	 * (non-Javadoc)
-	 * @see org.springframework.data.repository.CrudRepository#findAll(java.lang.Iterable)
+	/**
+	 * Returns the models with the given ids in the order of the ids. An id given more than once yields the same model
+	 * once per occurrence, ids without a model of the managed type are skipped.
+	 * 
+	 * @param ids may be {@literal null}.
+	 * @return the models found, never {@literal null}.
 	 */
 	List<T> findAll(Iterable<ID> ids);
 
@@ -54,4 +59,34 @@ public interface HybrisRepository<T extends ItemModel, ID extends Serializable>
 	 * @see org.springframework.data.repository.CrudRepository#save(java.lang.Iterable)
 	 */
 	<S extends T> List<S> save(Iterable<S> entities);
+
+	/**
+	 * Returns at most {@code limit} models with a {@link PK} greater than the given one in ascending {@link PK} order.
+	 * Pass {@link KeysetPage#getNextCursor()} of the returned page to read the next one.
+	 * 
+	 * @param lastSeen the {@link PK} of the last model already read, {@literal null} to start with the first model.
+	 * @param limit the maximum number of models to return, must be greater than zero.
+	 * @return
+	 */
+	KeysetPage<T> findAllAfter(PK lastSeen, int limit);
+
+	/**
+	 * Returns all models of the managed type in ascending {@link PK} order without reading them into memory at once.
+	 * {@link PK}s are read in chunks while iterating and models are resolved one by one. The models of a chunk are
+	 * detached from the model context once the next chunk is read, so a single iteration can walk any number of models
+	 * with constant memory.
+	 * 
+	 * @return a lazy {@link Iterable}, each {@link Iterable#iterator()} call starts a new traversal.
+	 */
+	Iterable<T> streamAll();
+
+	/**
+	 * Invokes the given callback for every model of the managed type. The {@link PK} space of the type is split into
+	 * ranges which are processed in parallel on the configured {@link java.util.concurrent.ExecutorService}, or one
+	 * after the other in the calling thread if none is configured. Every range is read in chunks and the models of a
+	 * chunk are detached once the callback has handled them. No order is guaranteed across ranges.
+	 * 
+	 * @param callback must not be {@literal null}, must be thread-safe.
+	 */
+	void forEachParallel(ModelCallback<? super T> callback);
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hybris.repository;
+
+import de.hybris.platform.core.model.ItemModel;
+
+/**
+ * Callback invoked for every model visited by {@link HybrisRepository#forEachParallel(ModelCallback)}. Implementations
+ * must be thread-safe as they are invoked from several threads at once.
+ * 
+ * @author Kamill Sokol
+ * @param <T> the type of the models to handle
+ */
+public interface ModelCallback<T extends ItemModel> {
+
+	/**
+	 * Handles the given model. The model is detached from the model context once its chunk has been processed.
+	 * 
+	 * @param model will never be {@literal null}.
+	 */
+	void doWithModel(T model);
+}
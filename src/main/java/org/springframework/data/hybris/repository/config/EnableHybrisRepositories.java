@@ -26,6 +26,7 @@ import org.springframework.beans.factory.FactoryBean;
 import org.springframework.context.annotation.ComponentScan.Filter;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.hybris.repository.support.HybrisRepositoryFactoryBean;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
 import org.springframework.data.repository.query.QueryLookupStrategy;
 import org.springframework.data.repository.query.QueryLookupStrategy.Key;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -132,6 +133,23 @@ public @interface EnableHybrisRepositories {
      */
     String typeServiceRef() default "typeService";
 
+    /**
+     * Configures the number of models handed to the {@link de.hybris.platform.servicelayer.model.ModelService} at once
+     * by bulk repository operations like {@code save(Iterable)}. Defaults to {@code 100}.
+     *
+     * @return
+     */
+    int batchSize() default SimpleJpaRepository.DEFAULT_BATCH_SIZE;
+
+    /**
+     * Configures the name of the {@link java.util.concurrent.ExecutorService} bean definition used to run chunks of bulk
+     * lookups in parallel. The executor has to activate the Hybris tenant and session on its threads. Chunks are run in
+     * the calling thread if not configured.
+     *
+     * @return
+     */
+    String executorServiceRef() default "";
+
 	/**
 	 * Configures the name of the {@link PlatformTransactionManager} bean definition to be used to create repositories
 	 * discovered through this annotation. Defaults to {@code transactionManager}.
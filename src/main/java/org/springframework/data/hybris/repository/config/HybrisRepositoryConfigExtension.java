@@ -75,6 +75,8 @@ public class HybrisRepositoryConfigExtension extends RepositoryConfigurationExte
         postProcessFlexibleSearchService(builder, element.getAttribute("flexible-search-service-ref"));
         postProcessModelService(builder, element.getAttribute("model-service-ref"));
         postProcessTypeService(builder, element.getAttribute("type-service-ref"));
+        postProcessBatchSize(builder, element.getAttribute("batch-size"));
+        postProcessExecutorService(builder, element.getAttribute("executor-service-ref"));
     }
 
 	/* 
@@ -88,6 +90,8 @@ public class HybrisRepositoryConfigExtension extends RepositoryConfigurationExte
         postProcessFlexibleSearchService(builder, attributes.getString("flexibleSearchServiceRef"));
         postProcessModelService(builder, attributes.getString("modelServiceRef"));
         postProcessTypeService(builder, attributes.getString("typeServiceRef"));
+        postProcessBatchSize(builder, String.valueOf(attributes.getNumber("batchSize")));
+        postProcessExecutorService(builder, attributes.getString("executorServiceRef"));
     }
 
     private void postProcessTransactionManager(BeanDefinitionBuilder builder, String transactionManagerRef) {
@@ -110,6 +114,18 @@ public class HybrisRepositoryConfigExtension extends RepositoryConfigurationExte
         builder.addPropertyReference("typeService", typeServiceRef);
     }
 
+    private void postProcessBatchSize(BeanDefinitionBuilder builder, String batchSize) {
+        if (StringUtils.hasText(batchSize)) {
+            builder.addPropertyValue("batchSize", batchSize);
+        }
+    }
+
+    private void postProcessExecutorService(BeanDefinitionBuilder builder, String executorServiceRef) {
+        if (StringUtils.hasText(executorServiceRef)) {
+            builder.addPropertyReference("executorService", executorServiceRef);
+        }
+    }
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.springframework.data.repository.config.RepositoryConfigurationExtensionSupport#registerBeansForRoot(org.springframework.beans.factory.support.BeanDefinitionRegistry, org.springframework.data.repository.config.RepositoryConfigurationSource)
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hybris.repository.query;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Order;
+import org.springframework.util.Assert;
+
+/**
+ * Simple utility class to create Hybris FlexibleSearch queries.
+ *
+ * @author Kamill Sokol
+ */
+public abstract class FlexibleSearchQueryUtils {
+
+	private static final Pattern SORT_PROPERTY = Pattern.compile("[A-Za-z_]\\w*(\\.[A-Za-z_]\\w*)?");
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private FlexibleSearchQueryUtils() {
+
+	}
+
+	/**
+	 * Adds an {@literal ORDER BY} clause to the FlexibleSearch query. Sort properties are referenced as attributes of
+	 * the queried type, e.g. {@code {code}}.
+	 *
+	 * @param query must not be {@literal null} or empty.
+	 * @param sort can be {@literal null}.
+	 * @return
+	 */
+	public static String applySorting(String query, Sort sort) {
+		return applySorting(query, sort, null);
+	}
+
+	/**
+	 * Adds an {@literal ORDER BY} clause to the FlexibleSearch query. Sort properties are qualified with the given alias,
+	 * e.g. {@code {p.code}}, unless the alias is {@literal null}.
+	 *
+	 * @param query must not be {@literal null} or empty.
+	 * @param sort can be {@literal null}.
+	 * @param alias can be {@literal null}.
+	 * @return
+	 */
+	public static String applySorting(String query, Sort sort, String alias) {
+		return applySorting(query, sort, alias, Collections.<String> emptySet());
+	}
+
+	/**
+	 * Adds an {@literal ORDER BY} clause to the FlexibleSearch query. Sort properties starting with one of the given join
+	 * aliases, e.g. {@code c.name}, reference the attribute of the joined type, e.g. {@code {c.name}}. All other sort
+	 * properties are qualified with the given alias unless it is {@literal null}. Sort properties are usually handed in
+	 * by clients, so anything but plain attribute names is rejected.
+	 * 
+	 * @param query must not be {@literal null} or empty.
+	 * @param sort can be {@literal null}.
+	 * @param alias can be {@literal null}.
+	 * @param joinAliases must not be {@literal null}.
+	 * @return
+	 * @throws IllegalArgumentException in case a sort property is not an attribute name of the queried or a joined type.
+	 * @see ParsedFlexibleSearchQuery#getJoinAliases()
+	 */
+	public static String applySorting(String query, Sort sort, String alias, Set<String> joinAliases) {
+
+		Assert.hasText(query);
+		Assert.notNull(joinAliases);
+
+		if (null == sort || !sort.iterator().hasNext()) {
+			return query;
+		}
+
+		return applySorting(ParsedFlexibleSearchQuery.parse(query), sort, alias, joinAliases);
+	}
+
+	/**
+	 * Adds an {@literal ORDER BY} clause to the already parsed FlexibleSearch query.
+	 *
+	 * @param query must not be {@literal null}.
+	 * @param sort can be {@literal null}.
+	 * @param alias can be {@literal null}.
+	 * @param joinAliases must not be {@literal null}.
+	 * @return
+	 * @see #applySorting(String, Sort, String, Set)
+	 */
+	public static String applySorting(ParsedFlexibleSearchQuery query, Sort sort, String alias, Set<String> joinAliases) {
+
+		Assert.notNull(query);
+
+		return applySorting(query.getQuery(), query.hasOrderBy(), sort, alias, joinAliases);
+	}
+
+	/**
+	 * Adds an {@literal ORDER BY} clause to a FlexibleSearch query whose structure is known already, e.g. as it was just
+	 * built, without parsing it.
+	 *
+	 * @param query must not be {@literal null} or empty.
+	 * @param ordered whether the query has an {@literal ORDER BY} clause already.
+	 * @param sort can be {@literal null}.
+	 * @param alias can be {@literal null}.
+	 * @param joinAliases must not be {@literal null}.
+	 * @return
+	 * @see #applySorting(String, Sort, String, Set)
+	 */
+	public static String applySorting(String query, boolean ordered, Sort sort, String alias, Set<String> joinAliases) {
+
+		Assert.hasText(query);
+		Assert.notNull(joinAliases);
+
+		if (null == sort || !sort.iterator().hasNext()) {
+			return query;
+		}
+
+		StringBuilder builder = new StringBuilder(query);
+		builder.append(ordered ? ", " : " ORDER BY ");
+		appendOrderClauses(builder, sort, alias, joinAliases);
+
+		return builder.toString();
+	}
+
+	/**
+	 * Creates a count projected query from the given FlexibleSearch query by counting its projection and dropping its
+	 * {@literal ORDER BY} clause.
+	 * 
+	 * @param originalQuery must not be {@literal null} or empty.
+	 * @return
+	 * @see #createCountQueryFor(ParsedFlexibleSearchQuery)
+	 */
+	public static String createCountQueryFor(String originalQuery) {
+
+		Assert.hasText(originalQuery);
+
+		return createCountQueryFor(ParsedFlexibleSearchQuery.parse(originalQuery));
+	}
+
+	/**
+	 * Creates a count projected query from the already parsed FlexibleSearch query. The {@literal ORDER BY} clause is
+	 * dropped. A {@literal DISTINCT} projection is only counted distinctly if joins may duplicate it, as the primary key
+	 * of the selected type is unique otherwise. Grouped queries and distinct projections of several columns are counted
+	 * by wrapping them into a subquery.
+	 * 
+	 * @param originalQuery must not be {@literal null}.
+	 * @return
+	 */
+	public static String createCountQueryFor(ParsedFlexibleSearchQuery originalQuery) {
+
+		Assert.notNull(originalQuery);
+
+		String projection = originalQuery.getProjection();
+
+		if (projection == null || projection.length() == 0) {
+			throw new IllegalArgumentException(String.format("Can not derive count query for %s!",
+					originalQuery.getQuery()));
+		}
+
+		boolean composite = originalQuery.getProjectionColumnCount() > 1;
+
+		if (originalQuery.hasGroupBy() || (originalQuery.isDistinct() && composite)) {
+			return String.format("SELECT COUNT(*) FROM ({{ %s }}) c", originalQuery.getUnorderedQuery());
+		}
+
+		boolean distinct = originalQuery.isDistinct()
+				&& (!originalQuery.getJoinAliases().isEmpty() || !isPrimaryKeyOf(projection, originalQuery.getAlias()));
+
+		return String.format("SELECT COUNT(%s%s) %s", distinct ? "DISTINCT " : "", composite ? "*" : projection,
+				originalQuery.getFromClauses());
+	}
+
+	/**
+	 * Returns whether the given projection references the primary key of the type aliased with the given alias, e.g.
+	 * {@code {p.PK}}.
+	 * 
+	 * @param projection must not be {@literal null}.
+	 * @param alias can be {@literal null}.
+	 * @return
+	 */
+	private static boolean isPrimaryKeyOf(String projection, String alias) {
+		return projection.equalsIgnoreCase(alias == null ? "{PK}" : String.format("{%s.PK}", alias));
+	}
+
+	/**
+	 * Appends the comma separated order clauses of the given {@link Sort} to the given {@link StringBuilder}.
+	 *
+	 * @param builder must not be {@literal null}.
+	 * @param sort must not be {@literal null}.
+	 * @param alias can be {@literal null}.
+	 * @param joinAliases must not be {@literal null}.
+	 */
+	private static void appendOrderClauses(StringBuilder builder, Sort sort, String alias, Set<String> joinAliases) {
+
+		boolean first = true;
+
+		for (Order order : sort) {
+
+			if (!first) {
+				builder.append(", ");
+			}
+
+			builder.append(getOrderClause(order, alias, joinAliases));
+			first = false;
+		}
+	}
+
+	/**
+	 * Returns the order clause for the given {@link Order}, e.g. {@code LOWER({p.name}) DESC}.
+	 *
+	 * @param order must not be {@literal null}.
+	 * @param alias can be {@literal null}.
+	 * @param joinAliases must not be {@literal null}.
+	 * @return
+	 */
+	private static String getOrderClause(Order order, String alias, Set<String> joinAliases) {
+
+		String property = order.getProperty();
+
+		if (!SORT_PROPERTY.matcher(property).matches()) {
+			throw new IllegalArgumentException(String.format("Invalid sort property %s!", property));
+		}
+
+		int dot = property.indexOf('.');
+		String reference;
+
+		if (dot > 0) {
+
+			if (!joinAliases.contains(property.substring(0, dot))) {
+				throw new IllegalArgumentException(String.format(
+						"Sort property %s does not reference an attribute of a joined type!", property));
+			}
+
+			reference = String.format("{%s}", property);
+
+		} else {
+			reference = alias == null ? String.format("{%s}", property) : String.format("{%s.%s}", alias, property);
+		}
+
+		String wrapped = order.isIgnoreCase() ? String.format("LOWER(%s)", reference) : reference;
+		return String.format("%s %s", wrapped, order.isAscending() ? "ASC" : "DESC");
+	}
+}
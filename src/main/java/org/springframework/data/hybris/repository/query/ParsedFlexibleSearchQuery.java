@@ -0,0 +1,661 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hybris.repository.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.Assert;
+
+/**
+ * Structure of a FlexibleSearch query as detected by a single pass over the query string: the projection, the
+ * {@literal FROM}, {@literal GROUP BY} and {@literal ORDER BY} clauses of the outer query, the selected and joined
+ * types and their aliases, the attributes referenced by the outer query, the parameters and the boundaries of
+ * {@code {{ subqueries }}}. String literals are skipped, clauses
+ * of subqueries do not affect the outer query's structure. Instances are immutable.
+ *
+ * @author Kamill Sokol
+ */
+public final class ParsedFlexibleSearchQuery {
+
+	private final String query;
+	private final int projectionStart;
+	private final int projectionColumnCount;
+	private final boolean distinct;
+	private final int fromOffset;
+	private final int groupByOffset;
+	private final int orderByOffset;
+	private final String alias;
+	private final Set<String> joinAliases;
+	private final String typeCode;
+	private final Map<String, String> aliasedTypeCodes;
+	private final List<String> attributeReferences;
+	private final List<Parameter> parameters;
+	private final List<Subquery> subqueries;
+
+	private ParsedFlexibleSearchQuery(Lexer lexer) {
+
+		this.query = lexer.query;
+		this.projectionStart = lexer.projectionStart;
+		this.projectionColumnCount = lexer.projectionColumnCount;
+		this.distinct = lexer.distinct;
+		this.fromOffset = lexer.fromOffset;
+		this.groupByOffset = lexer.groupByOffset;
+		this.orderByOffset = lexer.orderByOffset;
+		this.alias = lexer.alias;
+		this.joinAliases = Collections.unmodifiableSet(lexer.joinAliases);
+		this.typeCode = lexer.typeCode;
+		this.aliasedTypeCodes = Collections.unmodifiableMap(lexer.aliasedTypeCodes);
+		this.attributeReferences = Collections.unmodifiableList(lexer.attributeReferences);
+		this.parameters = Collections.unmodifiableList(lexer.parameters);
+		this.subqueries = Collections.unmodifiableList(lexer.subqueries);
+	}
+
+	/**
+	 * Parses the given FlexibleSearch query.
+	 *
+	 * @param query must not be {@literal null}.
+	 * @return
+	 */
+	public static ParsedFlexibleSearchQuery parse(String query) {
+
+		Assert.notNull(query, "Query must not be null!");
+
+		Lexer lexer = new Lexer(query);
+		lexer.lex();
+
+		return new ParsedFlexibleSearchQuery(lexer);
+	}
+
+	/**
+	 * Returns the parsed query string.
+	 *
+	 * @return
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * Returns the projection of the outer query without a leading {@literal DISTINCT}, e.g. {@code {p.PK}}.
+	 *
+	 * @return the projection or {@literal null} if the query lacks a {@literal SELECT} or {@literal FROM} clause.
+	 */
+	public String getProjection() {
+		return projectionStart < 0 || fromOffset < 0 ? null : query.substring(projectionStart, fromOffset).trim();
+	}
+
+	/**
+	 * Returns the number of columns the outer query selects, e.g. {@literal 2} for
+	 * {@code SELECT {p.code}, COALESCE({p.name}, {p.code}) FROM ...}.
+	 *
+	 * @return
+	 */
+	public int getProjectionColumnCount() {
+		return projectionColumnCount;
+	}
+
+	/**
+	 * Returns whether the outer query selects distinct rows.
+	 *
+	 * @return
+	 */
+	public boolean isDistinct() {
+		return distinct;
+	}
+
+	/**
+	 * Returns the outer query from its {@literal FROM} keyword up to its {@literal ORDER BY} clause, e.g.
+	 * {@code FROM {Product AS p} WHERE {p.code} = ?code}.
+	 *
+	 * @return the clauses or {@literal null} if the query lacks a {@literal FROM} clause.
+	 */
+	public String getFromClauses() {
+
+		if (fromOffset < 0) {
+			return null;
+		}
+
+		return query.substring(fromOffset, orderByOffset < 0 ? query.length() : orderByOffset).trim();
+	}
+
+	/**
+	 * Returns the query without the {@literal ORDER BY} clause of the outer query.
+	 *
+	 * @return
+	 */
+	public String getUnorderedQuery() {
+		return orderByOffset < 0 ? query : query.substring(0, orderByOffset).trim();
+	}
+
+	/**
+	 * Returns whether the outer query has a {@literal GROUP BY} clause.
+	 *
+	 * @return
+	 */
+	public boolean hasGroupBy() {
+		return groupByOffset >= 0;
+	}
+
+	/**
+	 * Returns whether the outer query has an {@literal ORDER BY} clause.
+	 *
+	 * @return
+	 */
+	public boolean hasOrderBy() {
+		return orderByOffset >= 0;
+	}
+
+	/**
+	 * Returns the offset of the {@literal ORDER BY} clause of the outer query.
+	 *
+	 * @return the offset or {@literal -1} if the outer query is not ordered.
+	 */
+	public int getOrderByOffset() {
+		return orderByOffset;
+	}
+
+	/**
+	 * Returns the alias of the type selected from, e.g. {@code p} for {@code SELECT {p.PK} FROM {Product AS p}}.
+	 *
+	 * @return the alias or {@literal null} if the type is not aliased.
+	 */
+	public String getAlias() {
+		return alias;
+	}
+
+	/**
+	 * Returns the aliases of the types joined in the outer query, e.g. {@code c} for
+	 * {@code SELECT {p.PK} FROM {Product AS p JOIN Category AS c ON ...}}.
+	 *
+	 * @return the join aliases, never {@literal null}.
+	 */
+	public Set<String> getJoinAliases() {
+		return joinAliases;
+	}
+
+	/**
+	 * Returns the code of the type selected from without exact or subtype modifiers, e.g. {@code Product} for
+	 * {@code SELECT {p.PK} FROM {Product! AS p}}.
+	 *
+	 * @return the type code or {@literal null} if the outer query does not select from a type.
+	 */
+	public String getTypeCode() {
+		return typeCode;
+	}
+
+	/**
+	 * Returns the codes of the selected and joined types by their aliases, e.g. {@code p -> Product} and
+	 * {@code c -> Category} for {@code SELECT {p.PK} FROM {Product AS p JOIN Category AS c ON ...}}.
+	 *
+	 * @return the type codes, never {@literal null}.
+	 */
+	public Map<String, String> getAliasedTypeCodes() {
+		return aliasedTypeCodes;
+	}
+
+	/**
+	 * Returns the contents of the attribute references of the outer query in order of appearance, e.g. {@code p.code}
+	 * and {@code p.name[en]:o}. References within subqueries are not included.
+	 *
+	 * @return the attribute references, never {@literal null}.
+	 */
+	public List<String> getAttributeReferences() {
+		return attributeReferences;
+	}
+
+	/**
+	 * Returns all parameters of the query including the ones of subqueries in order of appearance.
+	 *
+	 * @return the parameters, never {@literal null}.
+	 */
+	public List<Parameter> getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * Returns all subqueries in the order they end.
+	 *
+	 * @return the subqueries, never {@literal null}.
+	 */
+	public List<Subquery> getSubqueries() {
+		return subqueries;
+	}
+
+	/**
+	 * A parameter of a FlexibleSearch query like {@code ?code} or {@code ?1}.
+	 *
+	 * @author Kamill Sokol
+	 */
+	public static final class Parameter {
+
+		private final String name;
+		private final int start;
+		private final int end;
+		private final String keyword;
+		private final boolean leadingWildcard;
+		private final boolean trailingWildcard;
+
+		Parameter(String name, int start, int end, String keyword, boolean leadingWildcard, boolean trailingWildcard) {
+
+			this.name = name;
+			this.start = start;
+			this.end = end;
+			this.keyword = keyword;
+			this.leadingWildcard = leadingWildcard;
+			this.trailingWildcard = trailingWildcard;
+		}
+
+		/**
+		 * Returns the name of the parameter without the leading {@code ?}, e.g. {@code code} or {@code 1}.
+		 *
+		 * @return
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns whether the parameter references a method parameter by its position, e.g. {@code ?1}.
+		 *
+		 * @return
+		 */
+		public boolean isPositional() {
+
+			for (int i = 0; i < name.length(); i++) {
+				if (!Character.isDigit(name.charAt(i))) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		/**
+		 * Returns the offset of the parameter's {@code ?}.
+		 *
+		 * @return
+		 */
+		public int getStart() {
+			return start;
+		}
+
+		/**
+		 * Returns the offset following the parameter's name.
+		 *
+		 * @return
+		 */
+		public int getEnd() {
+			return end;
+		}
+
+		/**
+		 * Returns the {@literal LIKE} or {@literal IN} keyword the parameter is the operand of.
+		 *
+		 * @return the lower case keyword or {@literal null} if the parameter is not the operand of such a keyword.
+		 */
+		public String getKeyword() {
+			return keyword;
+		}
+
+		/**
+		 * Returns whether the parameter is directly preceded by a {@code %} wildcard.
+		 *
+		 * @return
+		 */
+		public boolean hasLeadingWildcard() {
+			return leadingWildcard;
+		}
+
+		/**
+		 * Returns whether the parameter is directly followed by a {@code %} wildcard.
+		 *
+		 * @return
+		 */
+		public boolean hasTrailingWildcard() {
+			return trailingWildcard;
+		}
+	}
+
+	/**
+	 * Boundaries of a {@code {{ subquery }}} including its double braces.
+	 *
+	 * @author Kamill Sokol
+	 */
+	public static final class Subquery {
+
+		private final int start;
+		private final int end;
+
+		Subquery(int start, int end) {
+
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * Returns the offset of the opening double braces.
+		 *
+		 * @return
+		 */
+		public int getStart() {
+			return start;
+		}
+
+		/**
+		 * Returns the offset following the closing double braces.
+		 *
+		 * @return
+		 */
+		public int getEnd() {
+			return end;
+		}
+	}
+
+	/**
+	 * Single pass lexer collecting the structure of a query. Not thread-safe, a new instance is used for every query.
+	 *
+	 * @author Kamill Sokol
+	 */
+	private static final class Lexer {
+
+		private final String query;
+		private final int length;
+
+		private final LinkedList<Integer> subqueryStarts = new LinkedList<Integer>();
+		private final LinkedList<Integer> subqueryBraceDepths = new LinkedList<Integer>();
+		private int position;
+		private int braceDepth;
+		private int parenthesisDepth;
+		private String previousWord;
+		private int previousWordStart;
+		private String bindingKeyword;
+		private boolean expectingFromBrace;
+		private boolean inFromClause;
+		private boolean expectingType;
+		private boolean expectingAlias;
+		private String currentTypeCode;
+		private int attributeStart = -1;
+
+		private int projectionStart = -1;
+		private int projectionColumnCount = 1;
+		private boolean distinct;
+		private int fromOffset = -1;
+		private int groupByOffset = -1;
+		private int orderByOffset = -1;
+		private String alias;
+		private final Set<String> joinAliases = new LinkedHashSet<String>();
+		private String typeCode;
+		private final Map<String, String> aliasedTypeCodes = new LinkedHashMap<String, String>();
+		private final List<String> attributeReferences = new ArrayList<String>();
+		private final List<Parameter> parameters = new ArrayList<Parameter>();
+		private final List<Subquery> subqueries = new ArrayList<Subquery>();
+
+		Lexer(String query) {
+
+			this.query = query;
+			this.length = query.length();
+		}
+
+		void lex() {
+
+			while (position < length) {
+
+				char c = query.charAt(position);
+
+				if (c == '\'') {
+					skipLiteral();
+				} else if (c == '{') {
+					openBrace();
+				} else if (c == '}') {
+					closeBrace();
+				} else if (c == '?') {
+					lexParameter();
+				} else if (Character.isLetter(c) || c == '_') {
+					lexWord();
+				} else {
+					lexPunctuation(c);
+				}
+			}
+		}
+
+		private boolean isOuterQuery() {
+			return braceDepth == 0 && subqueryStarts.isEmpty();
+		}
+
+		private boolean isInFromClause() {
+			return inFromClause && braceDepth == 1 && subqueryStarts.isEmpty();
+		}
+
+		private void skipLiteral() {
+
+			position++;
+
+			while (position < length) {
+
+				if (query.charAt(position++) == '\'') {
+
+					// doubled quotes escape a quote
+					if (position < length && query.charAt(position) == '\'') {
+						position++;
+					} else {
+						break;
+					}
+				}
+			}
+
+			bindingKeyword = null;
+		}
+
+		private void openBrace() {
+
+			bindingKeyword = null;
+
+			if (position + 1 < length && query.charAt(position + 1) == '{') {
+				subqueryStarts.push(position);
+				subqueryBraceDepths.push(braceDepth);
+				position += 2;
+				return;
+			}
+
+			if (expectingFromBrace && isOuterQuery()) {
+				inFromClause = true;
+				expectingType = true;
+			} else if (subqueryStarts.isEmpty()) {
+				attributeStart = position + 1;
+			}
+
+			expectingFromBrace = false;
+			braceDepth++;
+			position++;
+		}
+
+		private void closeBrace() {
+
+			bindingKeyword = null;
+
+			// closing double braces end a subquery unless they close attribute references inside of it
+			if (position + 1 < length && query.charAt(position + 1) == '}' && !subqueryStarts.isEmpty()
+					&& subqueryBraceDepths.peek() == braceDepth) {
+
+				subqueryBraceDepths.pop();
+				position += 2;
+				subqueries.add(new Subquery(subqueryStarts.pop(), position));
+				return;
+			}
+
+			if (attributeStart >= 0) {
+				attributeReferences.add(query.substring(attributeStart, position).trim());
+				attributeStart = -1;
+			}
+
+			braceDepth = Math.max(braceDepth - 1, 0);
+			position++;
+
+			if (isOuterQuery()) {
+				inFromClause = false;
+			}
+		}
+
+		private void lexPunctuation(char c) {
+
+			if (c == '(') {
+				parenthesisDepth++;
+			} else if (c == ')') {
+				parenthesisDepth = Math.max(parenthesisDepth - 1, 0);
+			} else if (c == ',' && parenthesisDepth == 0 && isOuterQuery() && projectionStart >= 0 && fromOffset < 0) {
+				projectionColumnCount++;
+			}
+
+			// the operand of LIKE and IN may be wrapped in parentheses and wildcards only
+			if (!Character.isWhitespace(c) && c != '(' && c != '%') {
+				bindingKeyword = null;
+			}
+
+			position++;
+		}
+
+		private void lexParameter() {
+
+			int start = position++;
+			int nameStart = position;
+
+			while (position < length && isParameterNameCharacter(query.charAt(position))) {
+				position++;
+			}
+
+			// a trailing dot ends the sentence rather than the name
+			while (position > nameStart && query.charAt(position - 1) == '.') {
+				position--;
+			}
+
+			if (position > nameStart) {
+
+				boolean leadingWildcard = start > 0 && query.charAt(start - 1) == '%';
+				boolean trailingWildcard = position < length && query.charAt(position) == '%';
+
+				parameters.add(new Parameter(query.substring(nameStart, position), start, position, bindingKeyword,
+						leadingWildcard, trailingWildcard));
+			}
+
+			bindingKeyword = null;
+		}
+
+		private void lexWord() {
+
+			int start = position;
+
+			while (position < length && isWordCharacter(query.charAt(position))) {
+				position++;
+			}
+
+			String word = query.substring(start, position);
+			bindingKeyword = "like".equalsIgnoreCase(word) || "in".equalsIgnoreCase(word) ? word.toLowerCase() : null;
+
+			if (isOuterQuery()) {
+				lexOuterQueryWord(word, start);
+			} else if (isInFromClause()) {
+				lexFromClauseWord(word);
+			}
+
+			previousWord = word;
+			previousWordStart = start;
+		}
+
+		private void lexOuterQueryWord(String word, int start) {
+
+			if (projectionStart < 0) {
+
+				if ("select".equalsIgnoreCase(word)) {
+					projectionStart = position;
+				}
+
+			} else if (fromOffset < 0) {
+
+				if ("distinct".equalsIgnoreCase(word) && "select".equalsIgnoreCase(previousWord)) {
+					distinct = true;
+					projectionStart = position;
+				} else if ("from".equalsIgnoreCase(word)) {
+					fromOffset = start;
+					expectingFromBrace = true;
+				}
+
+			} else if (orderByOffset < 0 && "by".equalsIgnoreCase(word)) {
+
+				if ("order".equalsIgnoreCase(previousWord)) {
+					orderByOffset = previousWordStart;
+				} else if (groupByOffset < 0 && "group".equalsIgnoreCase(previousWord)) {
+					groupByOffset = previousWordStart;
+				}
+			}
+		}
+
+		private void lexFromClauseWord(String word) {
+
+			if (expectingAlias) {
+
+				if (alias == null) {
+					alias = word;
+				} else {
+					joinAliases.add(word);
+				}
+
+				if (currentTypeCode != null) {
+					aliasedTypeCodes.put(word, currentTypeCode);
+				}
+
+				expectingAlias = false;
+
+			} else if ("as".equalsIgnoreCase(word)) {
+				expectingAlias = true;
+			} else if (expectingType) {
+
+				// Product! selects the exact type, Product* includes subtypes
+				int end = word.length();
+
+				while (end > 0 && (word.charAt(end - 1) == '!' || word.charAt(end - 1) == '*')) {
+					end--;
+				}
+
+				currentTypeCode = word.substring(0, end);
+
+				if (typeCode == null) {
+					typeCode = currentTypeCode;
+				}
+
+				expectingType = false;
+
+			} else if ("join".equalsIgnoreCase(word)) {
+				expectingType = true;
+				currentTypeCode = null;
+			}
+		}
+
+		private static boolean isWordCharacter(char c) {
+			return Character.isLetterOrDigit(c) || c == '_' || c == '!' || c == '*';
+		}
+
+		private static boolean isParameterNameCharacter(char c) {
+			return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+		}
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hybris.repository.query;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.util.Assert;
+
+/**
+ * Thread-safe cache of the variants of a FlexibleSearch query sorted by distinct {@link Sort}s. The cache is bounded:
+ * once {@code capacity} variants are cached, further variants are rendered on every call but not stored.
+ *
+ * @author Kamill Sokol
+ */
+public class SortedQueryCache {
+
+	public static final int DEFAULT_CAPACITY = 64;
+
+	private final String query;
+	private final boolean ordered;
+	private final String alias;
+	private final Set<String> joinAliases;
+	private final int capacity;
+	private final ConcurrentMap<Sort, String> sortedQueries;
+
+	/**
+	 * Creates a new {@link SortedQueryCache} for the given query referencing sort properties as attributes of the
+	 * queried type.
+	 *
+	 * @param query must not be {@literal null} or empty.
+	 */
+	public SortedQueryCache(String query) {
+		this(query, null, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a new {@link SortedQueryCache} for the given query qualifying sort properties with the given alias.
+	 *
+	 * @param query must not be {@literal null} or empty.
+	 * @param alias can be {@literal null}.
+	 * @param capacity must be greater than zero.
+	 */
+	public SortedQueryCache(String query, String alias, int capacity) {
+		this(ParsedFlexibleSearchQuery.parse(query), alias, Collections.<String> emptySet(), capacity);
+	}
+
+	/**
+	 * Creates a new {@link SortedQueryCache} for the already parsed query qualifying sort properties with the given
+	 * alias unless they start with one of the given join aliases.
+	 *
+	 * @param query must not be {@literal null}.
+	 * @param alias can be {@literal null}.
+	 * @param joinAliases must not be {@literal null}.
+	 * @param capacity must be greater than zero.
+	 * @see FlexibleSearchQueryUtils#applySorting(ParsedFlexibleSearchQuery, Sort, String, Set)
+	 */
+	public SortedQueryCache(ParsedFlexibleSearchQuery query, String alias, Set<String> joinAliases, int capacity) {
+		this(query.getQuery(), query.hasOrderBy(), alias, joinAliases, capacity);
+	}
+
+	/**
+	 * Creates a new {@link SortedQueryCache} for a query whose structure is known already, so it is not parsed again.
+	 *
+	 * @param query must not be {@literal null} or empty.
+	 * @param ordered whether the query has an {@literal ORDER BY} clause already.
+	 * @param alias can be {@literal null}.
+	 * @param joinAliases must not be {@literal null}.
+	 * @param capacity must be greater than zero.
+	 * @see FlexibleSearchQueryUtils#applySorting(String, boolean, Sort, String, Set)
+	 */
+	public SortedQueryCache(String query, boolean ordered, String alias, Set<String> joinAliases, int capacity) {
+
+		Assert.hasText(query, "Query must not be null or empty!");
+		Assert.notNull(joinAliases, "Join aliases must not be null!");
+		Assert.isTrue(capacity > 0, "Capacity must be greater than zero!");
+
+		this.query = query;
+		this.ordered = ordered;
+		this.alias = alias;
+		this.joinAliases = joinAliases;
+		this.capacity = capacity;
+		this.sortedQueries = new ConcurrentHashMap<Sort, String>(16, 0.75f, 4);
+	}
+
+	/**
+	 * Returns the unsorted query.
+	 *
+	 * @return
+	 */
+	public String getQueryString() {
+		return query;
+	}
+
+	/**
+	 * Returns the query sorted by the given {@link Sort}.
+	 *
+	 * @param sort can be {@literal null}.
+	 * @return
+	 */
+	public String getQueryString(Sort sort) {
+
+		if (sort == null) {
+			return query;
+		}
+
+		String sortedQuery = sortedQueries.get(sort);
+
+		if (sortedQuery != null) {
+			return sortedQuery;
+		}
+
+		sortedQuery = render(sort);
+
+		if (sortedQueries.size() < capacity) {
+			String existing = sortedQueries.putIfAbsent(sort, sortedQuery);
+			return existing == null ? sortedQuery : existing;
+		}
+
+		return sortedQuery;
+	}
+
+	/**
+	 * Renders the query sorted by the given {@link Sort}.
+	 *
+	 * @param sort will never be {@literal null}.
+	 * @return
+	 */
+	protected String render(Sort sort) {
+		return FlexibleSearchQueryUtils.applySorting(query, ordered, sort, alias, joinAliases);
+	}
+}
@@ -1,7 +1,9 @@
 package org.springframework.data.hybris.repository.query.lookup;
 
+import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.search.FlexibleSearchService;
 import de.hybris.platform.servicelayer.type.TypeService;
+import org.springframework.data.jpa.repository.query.FlexibleSearchQueryValidator;
 import org.springframework.data.jpa.repository.query.JpaQueryMethod;
 import org.springframework.data.repository.core.NamedQueries;
 import org.springframework.data.repository.query.RepositoryQuery;
@@ -14,10 +16,11 @@ public class CreateIfNotFoundQueryLookupStrategy extends AbstractQueryLookupStra
     private final DeclaredQueryLookupStrategy strategy;
     private final CreateQueryLookupStrategy createStrategy;
 
-    public CreateIfNotFoundQueryLookupStrategy(FlexibleSearchService flexibleSearchService, TypeService typeService) {
+    public CreateIfNotFoundQueryLookupStrategy(FlexibleSearchService flexibleSearchService, TypeService typeService,
+            ModelService modelService, int batchSize, FlexibleSearchQueryValidator queryValidator) {
         super(flexibleSearchService, typeService);
-        this.strategy = new DeclaredQueryLookupStrategy(flexibleSearchService, typeService);
-        this.createStrategy = new CreateQueryLookupStrategy(flexibleSearchService, typeService);
+        this.strategy = new DeclaredQueryLookupStrategy(flexibleSearchService, typeService, queryValidator);
+        this.createStrategy = new CreateQueryLookupStrategy(flexibleSearchService, typeService, modelService, batchSize);
     }
 
     @Override
@@ -1,5 +1,6 @@
 package org.springframework.data.hybris.repository.query.lookup;
 
+import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.search.FlexibleSearchService;
 import de.hybris.platform.servicelayer.type.TypeService;
 import org.springframework.data.jpa.repository.query.JpaQueryMethod;
@@ -12,15 +13,21 @@ import org.springframework.data.repository.query.RepositoryQuery;
  */
 class CreateQueryLookupStrategy extends AbstractQueryLookupStrategy {
 
-    public CreateQueryLookupStrategy(FlexibleSearchService flexibleSearchService, TypeService typeService) {
+    private final ModelService modelService;
+    private final int batchSize;
+
+    public CreateQueryLookupStrategy(FlexibleSearchService flexibleSearchService, TypeService typeService,
+            ModelService modelService, int batchSize) {
         super(flexibleSearchService, typeService);
+        this.modelService = modelService;
+        this.batchSize = batchSize;
     }
 
     @Override
     protected RepositoryQuery resolveQuery(JpaQueryMethod method, FlexibleSearchService flexibleSearchService, NamedQueries namedQueries) {
 
         try {
-            return new PartTreeJpaQuery(method, flexibleSearchService);
+            return new PartTreeJpaQuery(method, flexibleSearchService, modelService, batchSize);
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException(String.format("Could not create query metamodel for method %s!",
                     method.toString()), e);
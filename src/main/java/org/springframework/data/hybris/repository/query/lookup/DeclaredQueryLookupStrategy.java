@@ -2,6 +2,7 @@ package org.springframework.data.hybris.repository.query.lookup;
 
 import de.hybris.platform.servicelayer.search.FlexibleSearchService;
 import de.hybris.platform.servicelayer.type.TypeService;
+import org.springframework.data.jpa.repository.query.FlexibleSearchQueryValidator;
 import org.springframework.data.jpa.repository.query.JpaQueryMethod;
 import org.springframework.data.repository.core.NamedQueries;
 import org.springframework.data.repository.query.RepositoryQuery;
@@ -11,9 +12,12 @@ import org.springframework.data.repository.query.RepositoryQuery;
  */
 public class DeclaredQueryLookupStrategy extends AbstractQueryLookupStrategy {
 
+    private final FlexibleSearchQueryValidator queryValidator;
 
-    public DeclaredQueryLookupStrategy(FlexibleSearchService flexibleSearchService, TypeService typeService) {
+    public DeclaredQueryLookupStrategy(FlexibleSearchService flexibleSearchService, TypeService typeService,
+            FlexibleSearchQueryValidator queryValidator) {
         super(flexibleSearchService, typeService);
+        this.queryValidator = queryValidator;
     }
 
     @Override
@@ -21,13 +25,14 @@ public class DeclaredQueryLookupStrategy extends AbstractQueryLookupStrategy {
 
         RepositoryQuery query = JpaQueryFactory.INSTANCE.fromQueryAnnotation(method, flexibleSearchService);
 
-        if (null != query) {
-            return query;
+        String name = method.getNamedQueryName();
+        if (null == query && namedQueries.hasQuery(name)) {
+            query = JpaQueryFactory.INSTANCE.fromMethodWithQueryString(method, flexibleSearchService, namedQueries.getQuery(name));
         }
 
-        String name = method.getNamedQueryName();
-        if (namedQueries.hasQuery(name)) {
-            return JpaQueryFactory.INSTANCE.fromMethodWithQueryString(method, flexibleSearchService, namedQueries.getQuery(name));
+        if (null != query) {
+            queryValidator.register(query);
+            return query;
         }
 
 //			query = NamedQuery.lookupFrom(method, flexibleSearchService);
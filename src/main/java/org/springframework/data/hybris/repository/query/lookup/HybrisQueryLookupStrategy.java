@@ -15,8 +15,10 @@
  */
 package org.springframework.data.hybris.repository.query.lookup;
 
+import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.search.FlexibleSearchService;
 import de.hybris.platform.servicelayer.type.TypeService;
+import org.springframework.data.jpa.repository.query.FlexibleSearchQueryValidator;
 import org.springframework.data.repository.query.QueryLookupStrategy;
 import org.springframework.data.repository.query.QueryLookupStrategy.Key;
 
@@ -37,21 +39,28 @@ public final class HybrisQueryLookupStrategy {
 	 * Creates a {@link QueryLookupStrategy} for the given {@link Key}.
 	 * 
 	 * @param flexibleSearchService
+	 * @param typeService
+	 * @param modelService used by derived delete queries.
+	 * @param batchSize the number of items derived delete queries remove at once.
+	 * @param queryValidator declared queries are registered with for validation.
 	 * @param key
 	 * @return
 	 */
-	public static QueryLookupStrategy create(FlexibleSearchService flexibleSearchService, TypeService typeService, Key key) {
+	public static QueryLookupStrategy create(FlexibleSearchService flexibleSearchService, TypeService typeService,
+			ModelService modelService, int batchSize, FlexibleSearchQueryValidator queryValidator, Key key) {
 		if (key == null) {
-	        return new CreateIfNotFoundQueryLookupStrategy(flexibleSearchService, typeService);
+	        return new CreateIfNotFoundQueryLookupStrategy(flexibleSearchService, typeService, modelService, batchSize,
+					queryValidator);
 		}
 
 		switch (key) {
 			case CREATE:
-				return new CreateQueryLookupStrategy(flexibleSearchService, typeService);
+				return new CreateQueryLookupStrategy(flexibleSearchService, typeService, modelService, batchSize);
 			case USE_DECLARED_QUERY:
-				return new DeclaredQueryLookupStrategy(flexibleSearchService, typeService);
+				return new DeclaredQueryLookupStrategy(flexibleSearchService, typeService, queryValidator);
 			case CREATE_IF_NOT_FOUND:
-				return new CreateIfNotFoundQueryLookupStrategy(flexibleSearchService, typeService);
+				return new CreateIfNotFoundQueryLookupStrategy(flexibleSearchService, typeService, modelService, batchSize,
+						queryValidator);
 			default:
 				throw new IllegalArgumentException(String.format("Unsupported query lookup strategy %s!", key));
 		}
@@ -0,0 +1,5 @@
+/**
+ * Hybris FlexibleSearch specific query support.
+ */
+package org.springframework.data.hybris.repository.query;
+
@@ -16,12 +16,14 @@
 package org.springframework.data.hybris.repository.support;
 
 import java.io.Serializable;
+import java.util.concurrent.ExecutorService;
 
 import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.search.FlexibleSearchService;
 import de.hybris.platform.servicelayer.type.TypeService;
 import org.springframework.data.hybris.repository.core.HybrisEntityInformation;
 import org.springframework.data.hybris.repository.query.lookup.HybrisQueryLookupStrategy;
+import org.springframework.data.jpa.repository.query.FlexibleSearchQueryValidator;
 import org.springframework.data.jpa.repository.support.LockModeRepositoryPostProcessor;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
 import org.springframework.data.repository.core.EntityInformation;
@@ -42,6 +44,9 @@ public class HybrisRepositoryFactory extends RepositoryFactorySupport {
     private final TypeService typeService;
     private final ModelService modelService;
 	private final LockModeRepositoryPostProcessor lockModePostProcessor;
+	private final FlexibleSearchQueryValidator queryValidator;
+	private int batchSize = SimpleJpaRepository.DEFAULT_BATCH_SIZE;
+	private ExecutorService executorService;
 
     /**
      * Creates a new {@link HybrisRepositoryFactory}.
@@ -57,10 +62,49 @@ public class HybrisRepositoryFactory extends RepositoryFactorySupport {
         this.typeService = typeService;
         this.modelService = modelService;
 		this.lockModePostProcessor = LockModeRepositoryPostProcessor.INSTANCE;
+		this.queryValidator = new FlexibleSearchQueryValidator();
 
 		addRepositoryProxyPostProcessor(lockModePostProcessor);
 	}
 
+	/**
+	 * Configures the batch size handed to the repositories and derived delete queries created by this factory.
+	 *
+	 * @param batchSize must be greater than zero.
+	 * @see SimpleJpaRepository#setBatchSize(int)
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than zero!");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Configures the {@link ExecutorService} handed to the repositories created by this factory. Declared queries are
+	 * validated on it in parallel while a repository is created.
+	 *
+	 * @param executorService can be {@literal null}.
+	 * @see SimpleJpaRepository#setExecutorService(ExecutorService)
+	 */
+	public void setExecutorService(ExecutorService executorService) {
+		this.executorService = executorService;
+	}
+
+	/**
+	 * Creates the repository and validates its declared queries, so invalid ones fail repository creation.
+	 *
+	 * @see org.springframework.data.repository.core.support.RepositoryFactorySupport#getRepository(java.lang.Class,
+	 *      java.lang.Object)
+	 * @see FlexibleSearchQueryValidator
+	 */
+	@Override
+	public <T> T getRepository(Class<T> repositoryInterface, Object customImplementation) {
+
+		T repository = super.getRepository(repositoryInterface, customImplementation);
+		queryValidator.validateRegisteredQueries(executorService);
+
+		return repository;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.springframework.data.repository.core.support.RepositoryFactorySupport#getTargetRepository(org.springframework.data.repository.core.RepositoryMetadata)
@@ -72,6 +116,8 @@ public class HybrisRepositoryFactory extends RepositoryFactorySupport {
 
         Class<?> domainType = metadata.getDomainType();
         SimpleJpaRepository<?, ?> repo = new SimpleJpaRepository(domainType, flexibleSearchService, modelService);
+        repo.setBatchSize(batchSize);
+        repo.setExecutorService(executorService);
 
         //TODO
        // repo.setLockMetadataProvider(lockModePostProcessor.getLockMetadataProvider());
@@ -101,7 +147,8 @@ public class HybrisRepositoryFactory extends RepositoryFactorySupport {
 	 */
 	@Override
 	protected QueryLookupStrategy getQueryLookupStrategy(Key key) {
-		return HybrisQueryLookupStrategy.create(flexibleSearchService, typeService, key);
+		return HybrisQueryLookupStrategy.create(flexibleSearchService, typeService, modelService, batchSize,
+				queryValidator, key);
 	}
 
     @Override
@@ -16,10 +16,12 @@
 package org.springframework.data.hybris.repository.support;
 
 import java.io.Serializable;
+import java.util.concurrent.ExecutorService;
 
 import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.search.FlexibleSearchService;
 import de.hybris.platform.servicelayer.type.TypeService;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.core.support.RepositoryFactorySupport;
 import org.springframework.data.repository.core.support.TransactionalRepositoryFactoryBeanSupport;
@@ -38,6 +40,8 @@ public class HybrisRepositoryFactoryBean<T extends Repository<S, ID>, S, ID exte
     private FlexibleSearchService flexibleSearchService;
     private ModelService modelService;
     private TypeService typeService;
+    private int batchSize = SimpleJpaRepository.DEFAULT_BATCH_SIZE;
+    private ExecutorService executorService;
 
     public FlexibleSearchService getFlexibleSearchService() {
         return flexibleSearchService;
@@ -63,6 +67,22 @@ public class HybrisRepositoryFactoryBean<T extends Repository<S, ID>, S, ID exte
         this.typeService = typeService;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -71,7 +91,10 @@ public class HybrisRepositoryFactoryBean<T extends Repository<S, ID>, S, ID exte
      */
 	@Override
 	protected RepositoryFactorySupport doCreateRepositoryFactory() {
-		return new HybrisRepositoryFactory(flexibleSearchService, typeService, modelService);
+		HybrisRepositoryFactory factory = new HybrisRepositoryFactory(flexibleSearchService, typeService, modelService);
+		factory.setBatchSize(batchSize);
+		factory.setExecutorService(executorService);
+		return factory;
 	}
 
 	/*
@@ -85,6 +108,7 @@ public class HybrisRepositoryFactoryBean<T extends Repository<S, ID>, S, ID exte
 		Assert.notNull(flexibleSearchService, "FlexibleSearchService must not be null!");
         Assert.notNull(modelService, "ModelService must not be null!");
         Assert.notNull(typeService, "TypeService must not be null!");
+        Assert.isTrue(batchSize > 0, "Batch size must be greater than zero!");
 		super.afterPropertiesSet();
 	}
 }
@@ -15,15 +15,12 @@
  */
 package org.springframework.data.jpa.repository.query;
 
-import javax.persistence.EntityManager;
-import javax.persistence.LockModeType;
-import javax.persistence.Query;
-import javax.persistence.QueryHint;
-import javax.persistence.TypedQuery;
-
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
 import org.springframework.data.jpa.repository.query.JpaQueryExecution.CollectionExecution;
-import org.springframework.data.jpa.repository.query.JpaQueryExecution.ModifyingExecution;
+import org.springframework.data.jpa.repository.query.JpaQueryExecution.GroupingExecution;
 import org.springframework.data.jpa.repository.query.JpaQueryExecution.PagedExecution;
+import org.springframework.data.jpa.repository.query.JpaQueryExecution.ScalarExecution;
 import org.springframework.data.jpa.repository.query.JpaQueryExecution.SingleEntityExecution;
 import org.springframework.data.repository.query.RepositoryQuery;
 import org.springframework.util.Assert;
@@ -33,25 +30,26 @@ import org.springframework.util.Assert;
  * 
  * @author Oliver Gierke
  * @author Thomas Darimont
+ * @author Kamill Sokol
  */
 public abstract class AbstractJpaQuery implements RepositoryQuery {
 
 	private final JpaQueryMethod method;
-	private final EntityManager em;
+	private final FlexibleSearchService flexibleSearchService;
 
 	/**
 	 * Creates a new {@link AbstractJpaQuery} from the given {@link JpaQueryMethod}.
 	 * 
 	 * @param method
-	 * @param em
+	 * @param flexibleSearchService
 	 */
-	public AbstractJpaQuery(JpaQueryMethod method, EntityManager em) {
+	public AbstractJpaQuery(JpaQueryMethod method, FlexibleSearchService flexibleSearchService) {
 
 		Assert.notNull(method);
-		Assert.notNull(em);
+		Assert.notNull(flexibleSearchService);
 
 		this.method = method;
-		this.em = em;
+		this.flexibleSearchService = flexibleSearchService;
 	}
 
 	/*
@@ -67,11 +65,11 @@ public abstract class AbstractJpaQuery implements RepositoryQuery {
 	}
 
 	/**
-	 * @return the em
+	 * @return the flexibleSearchService
 	 */
-	protected EntityManager getEntityManager() {
+	protected FlexibleSearchService getFlexibleSearchService() {
 
-		return em;
+		return flexibleSearchService;
 	}
 
 	/*
@@ -98,56 +96,69 @@ public abstract class AbstractJpaQuery implements RepositoryQuery {
 
 	protected JpaQueryExecution getExecution() {
 
-		if (method.isCollectionQuery()) {
+		if (method.isGroupingQuery()) {
+			return new GroupingExecution();
+		} else if (method.isCollectionQuery()) {
 			return new CollectionExecution();
 		} else if (method.isPageQuery()) {
 			return new PagedExecution(method.getParameters());
-		} else if (method.isModifyingQuery()) {
-			return method.getClearAutomatically() ? new ModifyingExecution(method, em) : new ModifyingExecution(method, null);
+		} else if (method.isScalarQuery()) {
+			return new ScalarExecution();
 		} else {
 			return new SingleEntityExecution();
 		}
 	}
 
+	protected ParameterBinder createBinder(Object[] values) {
+		return new ParameterBinder(getQueryMethod().getParameters(), values);
+	}
+
+	protected FlexibleSearchQuery createQuery(Object[] values) {
+		return applyMaxResults(doCreateQuery(values));
+	}
+
+	protected FlexibleSearchQuery createCountQuery(Object[] values) {
+		return doCreateCountQuery(values);
+	}
+
 	/**
-	 * Applies the {@link LockModeType} provided by the {@link JpaQueryMethod} to the given {@link Query}.
+	 * Limits the given {@link FlexibleSearchQuery} to the maximum number of results declared by the query method. A page
+	 * requested by the method is cut off at the limit, a page starting beyond the limit gets a count of zero.
 	 * 
 	 * @param query must not be {@literal null}.
-	 * @param method must not be {@literal null}.
 	 * @return
 	 */
-	private Query applyLockMode(Query query, JpaQueryMethod method) {
+	private FlexibleSearchQuery applyMaxResults(FlexibleSearchQuery query) {
 
-		LockModeType lockModeType = method.getLockModeType();
-		return lockModeType == null ? query : query.setLockMode(lockModeType);
-	}
+		Integer maxResults = method.getMaxResults();
 
-	protected ParameterBinder createBinder(Object[] values) {
-		return new ParameterBinder(getQueryMethod().getParameters(), values);
-	}
+		if (maxResults == null) {
+			return query;
+		}
 
-	protected Query createQuery(Object[] values) {
-		return applyLockMode(doCreateQuery(values), method);
-	}
+		int remaining = maxResults - Math.max(query.getStart(), 0);
+
+		if (query.getCount() < 0 || query.getCount() > remaining) {
+			query.setCount(Math.max(remaining, 0));
+		}
 
-	protected TypedQuery<Long> createCountQuery(Object[] values) {
-		TypedQuery<Long> countQuery = doCreateCountQuery(values);
-		return countQuery;
+		return query;
 	}
 
 	/**
-	 * Creates a {@link Query} instance for the given values.
+	 * Creates a {@link FlexibleSearchQuery} instance for the given values.
 	 * 
 	 * @param values must not be {@literal null}.
 	 * @return
 	 */
-	protected abstract Query doCreateQuery(Object[] values);
+	protected abstract FlexibleSearchQuery doCreateQuery(Object[] values);
 
 	/**
-	 * Creates a {@link TypedQuery} for counting using the given values.
+	 * Creates a {@link FlexibleSearchQuery} for counting using the given values. The query returns a single
+	 * {@link Long}.
 	 * 
 	 * @param values must not be {@literal null}.
 	 * @return
 	 */
-	protected abstract TypedQuery<Long> doCreateCountQuery(Object[] values);
+	protected abstract FlexibleSearchQuery doCreateCountQuery(Object[] values);
 }
@@ -15,42 +15,48 @@
  */
 package org.springframework.data.jpa.repository.query;
 
-import javax.persistence.EntityManager;
-import javax.persistence.Query;
-import javax.persistence.TypedQuery;
+import java.util.Arrays;
 
-import org.springframework.data.repository.query.ParameterAccessor;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.hybris.repository.query.SortedQueryCache;
 import org.springframework.data.repository.query.ParametersParameterAccessor;
 import org.springframework.util.Assert;
 
 /**
- * Base class for {@link String} based JPA queries.
+ * Base class for {@link String} based FlexibleSearch queries.
  * 
  * @author Oliver Gierke
  * @author Thomas Darimont
+ * @author Kamill Sokol
  */
 abstract class AbstractStringBasedJpaQuery extends AbstractJpaQuery {
 
 	private final StringQuery query;
 	private final StringQuery countQuery;
+	private final SortedQueryCache sortedQueries;
 
 	/**
-	 * Creates a new {@link AbstractStringBasedJpaQuery} from the given {@link JpaQueryMethod}, {@link EntityManager} and
-	 * query {@link String}.
+	 * Creates a new {@link AbstractStringBasedJpaQuery} from the given {@link JpaQueryMethod},
+	 * {@link FlexibleSearchService} and query {@link String}.
 	 * 
 	 * @param method must not be {@literal null}.
-	 * @param em must not be {@literal null}.
+	 * @param flexibleSearchService must not be {@literal null}.
 	 * @param queryString must not be {@literal null}.
 	 */
-	public AbstractStringBasedJpaQuery(JpaQueryMethod method, EntityManager em, String queryString) {
+	public AbstractStringBasedJpaQuery(JpaQueryMethod method, FlexibleSearchService flexibleSearchService,
+			String queryString) {
 
-		super(method, em);
+		super(method, flexibleSearchService);
 
 		Assert.hasText(queryString, "Query string must not be null or empty!");
 
-		this.query = new ExpressionBasedStringQuery(queryString, method.getEntityInformation());
-		this.countQuery = new StringQuery(method.getCountQuery() != null ? method.getCountQuery()
-				: QueryUtils.createCountQueryFor(this.query.getQueryString()));
+		this.query = StringQueryCache.INSTANCE.getQuery(queryString, method.getEntityInformation());
+		this.countQuery = StringQueryCache.INSTANCE.getCountQuery(query, method.getCountQuery());
+		// LIKE wildcards removed from the query string leave its structure untouched, so the single parse is reused
+		this.sortedQueries = new SortedQueryCache(query.getQueryString(), query.getParsedQuery().hasOrderBy(),
+				query.getAlias(), query.getJoinAliases(), SortedQueryCache.DEFAULT_CAPACITY);
 	}
 
 	/*
@@ -58,14 +64,14 @@ abstract class AbstractStringBasedJpaQuery extends AbstractJpaQuery {
 	 * @see org.springframework.data.jpa.repository.query.AbstractJpaQuery#doCreateQuery(java.lang.Object[])
 	 */
 	@Override
-	public Query doCreateQuery(Object[] values) {
+	public FlexibleSearchQuery doCreateQuery(Object[] values) {
 
-		ParameterAccessor accessor = new ParametersParameterAccessor(getQueryMethod().getParameters(), values);
-		String sortedQueryString = QueryUtils.applySorting(query.getQueryString(), accessor.getSort(), query.getAlias());
+		JpaParameters parameters = getQueryMethod().getParameters();
+		Sort sort = parameters.potentiallySortsDynamically() ? new ParametersParameterAccessor(parameters, values)
+				.getSort() : null;
+		String sortedQueryString = sortedQueries.getQueryString(sort);
 
-		Query query = createJpaQuery(sortedQueryString);
-
-		return createBinder(values).bindAndPrepare(query);
+		return createBinder(values).bindAndPrepare(new FlexibleSearchQuery(sortedQueryString));
 	}
 
 	/*
@@ -77,24 +83,18 @@ abstract class AbstractStringBasedJpaQuery extends AbstractJpaQuery {
 		return new StringQueryParameterBinder(getQueryMethod().getParameters(), values, query);
 	}
 
-	/**
-	 * Creates an appropriate JPA query from an {@link EntityManager} according to the current {@link AbstractJpaQuery}
-	 * type.
-	 * 
-	 * @param queryString
-	 * @return
-	 */
-	public Query createJpaQuery(String queryString) {
-		return getEntityManager().createQuery(queryString);
-	}
-
 	/*
 	 * (non-Javadoc)
 	 * @see org.springframework.data.jpa.repository.query.AbstractJpaQuery#doCreateCountQuery(java.lang.Object[])
 	 */
 	@Override
-	protected TypedQuery<Long> doCreateCountQuery(Object[] values) {
-		return createBinder(values).bind(getEntityManager().createQuery(countQuery.getQueryString(), Long.class));
+	protected FlexibleSearchQuery doCreateCountQuery(Object[] values) {
+
+		FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery(countQuery.getQueryString());
+		flexibleSearchQuery.setResultClassList(Arrays.asList(Long.class));
+
+		return new StringQueryParameterBinder(getQueryMethod().getParameters(), values, countQuery, true)
+				.bind(flexibleSearchQuery);
 	}
 
 	/**
@@ -15,7 +15,7 @@
  */
 package org.springframework.data.jpa.repository.query;
 
-import org.springframework.data.jpa.repository.support.JpaEntityMetadata;
+import org.springframework.data.hybris.repository.core.HybrisEntityMetadata;
 import org.springframework.data.repository.core.EntityMetadata;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ParserContext;
@@ -28,7 +28,7 @@ import org.springframework.util.Assert;
  * <p>
  * Currently the following template variables are available:
  * <ol>
- * <li>{@code #entityName} - the simple class name of the given entity</li>
+ * <li>{@code #entityName} - the typecode of the given model</li>
  * <ol>
  * 
  * @author Thomas Darimont
@@ -44,16 +44,16 @@ class ExpressionBasedStringQuery extends StringQuery {
 	 * @param query must not be {@literal null} or empty.
 	 * @param metadata must not be {@literal null}.
 	 */
-	public ExpressionBasedStringQuery(String query, JpaEntityMetadata<?> metadata) {
+	public ExpressionBasedStringQuery(String query, HybrisEntityMetadata<?> metadata) {
 		super(renderQueryIfExpressionOrReturnQuery(query, metadata));
 	}
 
 	/**
 	 * @param query, the query expression potentially containing a SpEL expression. Must not be {@literal null}.}
-	 * @param metadata the {@link JpaEntityMetadata} for the given entity. Must not be {@literal null}.
+	 * @param metadata the {@link HybrisEntityMetadata} for the given entity. Must not be {@literal null}.
 	 * @return
 	 */
-	private static String renderQueryIfExpressionOrReturnQuery(String query, JpaEntityMetadata<?> metadata) {
+	private static String renderQueryIfExpressionOrReturnQuery(String query, HybrisEntityMetadata<?> metadata) {
 
 		Assert.notNull(query, "query must not be null!");
 		Assert.notNull(metadata, "metadata must not be null!");
@@ -63,7 +63,7 @@ class ExpressionBasedStringQuery extends StringQuery {
 		}
 
 		StandardEvaluationContext evalContext = new StandardEvaluationContext();
-		evalContext.setVariable(ENTITY_NAME, metadata.getEntityName());
+		evalContext.setVariable(ENTITY_NAME, metadata.getTypecode());
 
 		SpelExpressionParser parser = new SpelExpressionParser();
 		Expression expr = parser.parseExpression(query, ParserContext.TEMPLATE_EXPRESSION);
@@ -72,7 +72,13 @@ class ExpressionBasedStringQuery extends StringQuery {
 		return result == null ? query : String.valueOf(result);
 	}
 
-	private static boolean containsExpression(String query) {
+	/**
+	 * Returns whether the given query contains template expressions to be evaluated.
+	 * 
+	 * @param query must not be {@literal null}.
+	 * @return
+	 */
+	static boolean containsExpression(String query) {
 		return query.contains("#{#" + ENTITY_NAME + "}");
 	}
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.jpa.repository.query;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.hybris.repository.core.HybrisEntityMetadata;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.util.Assert;
+
+/**
+ * Special {@link FlexibleSearchQueryCreator} that creates a query projecting an aggregate of a single attribute, e.g.
+ * {@code SELECT SUM({x.totalPrice}) FROM {Order AS x} WHERE {x.user} = ?p0}.
+ * 
+ * @author Kamill Sokol
+ */
+public class FlexibleSearchAggregateQueryCreator extends FlexibleSearchQueryCreator {
+
+	private final String function;
+	private final PropertyPath property;
+
+	/**
+	 * Creates a new {@link FlexibleSearchAggregateQueryCreator}.
+	 * 
+	 * @param tree must not be {@literal null}.
+	 * @param entityMetadata must not be {@literal null}.
+	 * @param provider must not be {@literal null}.
+	 * @param function the aggregate function, e.g. {@code SUM}, must not be {@literal null} or empty.
+	 * @param property the aggregated property, must not be {@literal null}.
+	 */
+	public FlexibleSearchAggregateQueryCreator(PartTree tree, HybrisEntityMetadata<?> entityMetadata,
+			ParameterMetadataProvider provider, String function, PropertyPath property) {
+
+		super(tree, entityMetadata, provider);
+
+		Assert.hasText(function, "Aggregate function must not be null or empty!");
+		Assert.notNull(property, "Aggregated property must not be null!");
+
+		this.function = function;
+		this.property = property;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.jpa.repository.query.FlexibleSearchQueryCreator#complete(java.lang.String, org.springframework.data.domain.Sort)
+	 */
+	@Override
+	protected String complete(String criteria, Sort sort) {
+		return super.complete(criteria, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.jpa.repository.query.FlexibleSearchQueryCreator#getProjection(boolean)
+	 */
+	@Override
+	protected String getProjection(boolean distinct) {
+		return String.format("%s(%s%s)", function, distinct ? "DISTINCT " : "", toAttributeReference(property));
+	}
+}
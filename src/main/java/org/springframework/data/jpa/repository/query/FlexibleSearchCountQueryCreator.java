@@ -0,0 +1,59 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.jpa.repository.query;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.hybris.repository.core.HybrisEntityMetadata;
+import org.springframework.data.repository.query.parser.PartTree;
+
+/**
+ * Special {@link FlexibleSearchQueryCreator} that creates a count projecting query.
+ * 
+ * @author Kamill Sokol
+ */
+public class FlexibleSearchCountQueryCreator extends FlexibleSearchQueryCreator {
+
+	/**
+	 * Creates a new {@link FlexibleSearchCountQueryCreator}.
+	 * 
+	 * @param tree must not be {@literal null}.
+	 * @param entityMetadata must not be {@literal null}.
+	 * @param provider must not be {@literal null}.
+	 */
+	public FlexibleSearchCountQueryCreator(PartTree tree, HybrisEntityMetadata<?> entityMetadata,
+			ParameterMetadataProvider provider) {
+		super(tree, entityMetadata, provider);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.jpa.repository.query.FlexibleSearchQueryCreator#complete(java.lang.String, org.springframework.data.domain.Sort)
+	 */
+	@Override
+	protected String complete(String criteria, Sort sort) {
+		return super.complete(criteria, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.jpa.repository.query.FlexibleSearchQueryCreator#getProjection(boolean)
+	 */
+	@Override
+	protected String getProjection(boolean distinct) {
+		// derived joins follow single valued references only, so the primary keys selected are distinct anyway
+		return String.format("COUNT(%s)", super.getProjection(false));
+	}
+}
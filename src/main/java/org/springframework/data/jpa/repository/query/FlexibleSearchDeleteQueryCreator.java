@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.jpa.repository.query;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.hybris.repository.core.HybrisEntityMetadata;
+import org.springframework.data.repository.query.parser.PartTree;
+
+/**
+ * Special {@link FlexibleSearchQueryCreator} that creates a query selecting the primary keys of the items to delete in
+ * ascending order. The keyset variant only selects primary keys greater than the one bound to
+ * {@value #LAST_SEEN_PARAMETER}, so the items are deleted chunk by chunk without re-reading items already handled.
+ * 
+ * @author Kamill Sokol
+ */
+public class FlexibleSearchDeleteQueryCreator extends FlexibleSearchQueryCreator {
+
+	static final String LAST_SEEN_PARAMETER = "lastSeen";
+
+	private static final String PK = "PK";
+	private static final Sort PK_ORDER = new Sort(PK);
+
+	private final boolean keyset;
+
+	/**
+	 * Creates a new {@link FlexibleSearchDeleteQueryCreator}.
+	 * 
+	 * @param tree must not be {@literal null}.
+	 * @param entityMetadata must not be {@literal null}.
+	 * @param provider must not be {@literal null}.
+	 * @param keyset whether to select primary keys greater than the one bound to {@value #LAST_SEEN_PARAMETER} only.
+	 */
+	public FlexibleSearchDeleteQueryCreator(PartTree tree, HybrisEntityMetadata<?> entityMetadata,
+			ParameterMetadataProvider provider, boolean keyset) {
+
+		super(tree, entityMetadata, provider);
+		this.keyset = keyset;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.jpa.repository.query.FlexibleSearchQueryCreator#complete(java.lang.String, org.springframework.data.domain.Sort)
+	 */
+	@Override
+	protected String complete(String criteria, Sort sort) {
+
+		if (!keyset) {
+			return super.complete(criteria, PK_ORDER);
+		}
+
+		String after = String.format("{%s.%s} > ?%s", ALIAS, PK, LAST_SEEN_PARAMETER);
+		return super.complete(criteria == null ? after : String.format("(%s) AND %s", criteria, after), PK_ORDER);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.jpa.repository.query.FlexibleSearchQueryCreator#getProjection(boolean)
+	 */
+	@Override
+	protected String getProjection(boolean distinct) {
+		// derived joins follow single valued references only, so the primary keys selected are distinct anyway
+		return super.getProjection(false);
+	}
+}
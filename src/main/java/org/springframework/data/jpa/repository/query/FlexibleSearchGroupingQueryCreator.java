@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.jpa.repository.query;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.hybris.repository.core.HybrisEntityMetadata;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.util.Assert;
+
+/**
+ * Special {@link FlexibleSearchQueryCreator} that creates a query selecting the attribute to group by along with the
+ * {@literal PK} of every matching item, e.g. {@code SELECT {x.status}, {x.PK} FROM {Order AS x} WHERE {x.user} = ?p0}.
+ * Counting queries count the items per group in the database instead, e.g.
+ * {@code SELECT {x.status}, COUNT({x.PK}) FROM {Order AS x} WHERE {x.user} = ?p0 GROUP BY {x.status}}.
+ * 
+ * @author Kamill Sokol
+ */
+public class FlexibleSearchGroupingQueryCreator extends FlexibleSearchQueryCreator {
+
+	private final PropertyPath groupingProperty;
+	private final boolean counting;
+
+	/**
+	 * Creates a new {@link FlexibleSearchGroupingQueryCreator}.
+	 * 
+	 * @param tree must not be {@literal null}.
+	 * @param entityMetadata must not be {@literal null}.
+	 * @param provider must not be {@literal null}.
+	 * @param groupingProperty the property to group by, must not be {@literal null}.
+	 * @param counting whether to count the items per group.
+	 */
+	public FlexibleSearchGroupingQueryCreator(PartTree tree, HybrisEntityMetadata<?> entityMetadata,
+			ParameterMetadataProvider provider, PropertyPath groupingProperty, boolean counting) {
+
+		super(tree, entityMetadata, provider);
+
+		Assert.notNull(groupingProperty, "Grouping property must not be null!");
+
+		this.groupingProperty = groupingProperty;
+		this.counting = counting;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.jpa.repository.query.FlexibleSearchQueryCreator#complete(java.lang.String, org.springframework.data.domain.Sort)
+	 */
+	@Override
+	protected String complete(String criteria, Sort sort) {
+
+		if (!counting) {
+			return super.complete(criteria, sort);
+		}
+
+		return super.complete(criteria, null) + " GROUP BY " + toAttributeReference(groupingProperty);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.jpa.repository.query.FlexibleSearchQueryCreator#getProjection(boolean)
+	 */
+	@Override
+	protected String getProjection(boolean distinct) {
+
+		String projection = super.getProjection(distinct);
+		return String.format(counting ? "%s, COUNT(%s)" : "%s, %s", toAttributeReference(groupingProperty), projection);
+	}
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.jpa.repository.query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import de.hybris.platform.core.model.ItemModel;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Order;
+import org.springframework.data.hybris.repository.core.HybrisEntityMetadata;
+import org.springframework.data.hybris.repository.query.FlexibleSearchQueryUtils;
+import org.springframework.data.jpa.repository.query.ParameterMetadataProvider.ParameterMetadata;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.repository.query.parser.AbstractQueryCreator;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.util.Assert;
+
+/**
+ * Query creator to compile a {@link PartTree} into a FlexibleSearch query string, e.g.
+ * {@code SELECT {x.PK} FROM {Product AS x} WHERE {x.code} = ?p0}. Method arguments are referenced by the generated
+ * parameter names of the {@link ParameterMetadata} returned by {@link #getParameterExpressions()}, so the query string
+ * can be reused for every invocation and only the values need to be bound. Nested property paths like
+ * {@code catalogVersion.catalog.id} are compiled into joins, each path being joined once per query.
+ * 
+ * @author Kamill Sokol
+ */
+public class FlexibleSearchQueryCreator extends AbstractQueryCreator<String, String> {
+
+	static final String ALIAS = "x";
+	private static final String JOIN_ALIAS_PREFIX = "j";
+
+	private final HybrisEntityMetadata<?> entityMetadata;
+	private final boolean distinct;
+	private final ParameterMetadataProvider provider;
+	private final Map<String, String> joinAliases;
+	private final StringBuilder joins;
+	private boolean ordered;
+
+	/**
+	 * Creates a new {@link FlexibleSearchQueryCreator}.
+	 * 
+	 * @param tree must not be {@literal null}.
+	 * @param entityMetadata must not be {@literal null}.
+	 * @param provider must not be {@literal null}.
+	 */
+	public FlexibleSearchQueryCreator(PartTree tree, HybrisEntityMetadata<?> entityMetadata,
+			ParameterMetadataProvider provider) {
+
+		super(tree);
+
+		Assert.notNull(entityMetadata, "HybrisEntityMetadata must not be null!");
+		Assert.notNull(provider, "ParameterMetadataProvider must not be null!");
+
+		this.entityMetadata = entityMetadata;
+		this.distinct = tree.isDistinct();
+		this.provider = provider;
+		this.joinAliases = new HashMap<String, String>();
+		this.joins = new StringBuilder();
+	}
+
+	/**
+	 * Returns all {@link ParameterMetadata} created when creating the query.
+	 * 
+	 * @return the parameterExpressions
+	 */
+	public List<ParameterMetadata> getParameterExpressions() {
+		return provider.getExpressions();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.repository.query.parser.AbstractQueryCreator#create(org.springframework.data.repository.query.parser.Part, java.util.Iterator)
+	 */
+	@Override
+	protected String create(Part part, Iterator<Object> iterator) {
+		return toCriterion(part);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.repository.query.parser.AbstractQueryCreator#and(org.springframework.data.repository.query.parser.Part, java.lang.Object, java.util.Iterator)
+	 */
+	@Override
+	protected String and(Part part, String base, Iterator<Object> iterator) {
+		return base + " AND " + toCriterion(part);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.repository.query.parser.AbstractQueryCreator#or(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	protected String or(String base, String criteria) {
+		return base + " OR " + criteria;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.repository.query.parser.AbstractQueryCreator#complete(java.lang.Object, org.springframework.data.domain.Sort)
+	 */
+	@Override
+	protected String complete(String criteria, Sort sort) {
+
+		// resolve the projection and nested sort properties first as both might add joins
+		String projection = getProjection(distinct);
+		Sort joinedSort = toJoinedSort(sort);
+
+		StringBuilder builder = new StringBuilder("SELECT ");
+		builder.append(projection);
+		builder.append(" FROM {").append(entityMetadata.getTypecode()).append(" AS ").append(ALIAS);
+		builder.append(joins).append("}");
+
+		if (criteria != null) {
+			builder.append(" WHERE ").append(criteria);
+		}
+
+		this.ordered = joinedSort != null && joinedSort.iterator().hasNext();
+
+		return FlexibleSearchQueryUtils.applySorting(builder.toString(), false, joinedSort, ALIAS,
+				new HashSet<String>(joinAliases.values()));
+	}
+
+	/**
+	 * Returns whether the query created ends with an {@literal ORDER BY} clause, so further orders can be appended
+	 * without parsing it.
+	 * 
+	 * @return
+	 */
+	public boolean isOrdered() {
+		return ordered;
+	}
+
+	/**
+	 * Replaces nested properties of the given {@link Sort}, e.g. {@code catalogVersion.catalog.id}, by the attributes of
+	 * the joined types qualified with their join alias, e.g. {@code j1.id}.
+	 * 
+	 * @param sort can be {@literal null}.
+	 * @return
+	 */
+	private Sort toJoinedSort(Sort sort) {
+
+		if (sort == null) {
+			return null;
+		}
+
+		List<Order> orders = new ArrayList<Order>();
+
+		for (Order order : sort) {
+
+			String property = order.getProperty();
+
+			if (!property.contains(".")) {
+				orders.add(order);
+				continue;
+			}
+
+			String reference = toAttributeReference(PropertyPath.from(property, entityMetadata.getJavaType()));
+			Order joined = new Order(order.getDirection(), reference.substring(1, reference.length() - 1));
+			orders.add(order.isIgnoreCase() ? joined.ignoreCase() : joined);
+		}
+
+		return new Sort(orders);
+	}
+
+	/**
+	 * Returns the projection of the query.
+	 * 
+	 * @param distinct whether the method requested distinct results.
+	 * @return
+	 */
+	protected String getProjection(boolean distinct) {
+		return distinct ? "DISTINCT {" + ALIAS + ".PK}" : "{" + ALIAS + ".PK}";
+	}
+
+	/**
+	 * Creates the FlexibleSearch criterion for the given {@link Part}.
+	 * 
+	 * @param part must not be {@literal null}.
+	 * @return
+	 */
+	private String toCriterion(Part part) {
+
+		String attribute = toAttributeReference(part.getProperty());
+
+		switch (part.getType()) {
+			case BETWEEN:
+				ParameterMetadata first = provider.next(part);
+				ParameterMetadata second = provider.next(part);
+				return String.format("%s BETWEEN %s AND %s", attribute, first.getPlaceholder(), second.getPlaceholder());
+			case AFTER:
+			case GREATER_THAN:
+				return String.format("%s > %s", attribute, provider.next(part).getPlaceholder());
+			case GREATER_THAN_EQUAL:
+				return String.format("%s >= %s", attribute, provider.next(part).getPlaceholder());
+			case BEFORE:
+			case LESS_THAN:
+				return String.format("%s < %s", attribute, provider.next(part).getPlaceholder());
+			case LESS_THAN_EQUAL:
+				return String.format("%s <= %s", attribute, provider.next(part).getPlaceholder());
+			case IS_NULL:
+				return String.format("%s IS NULL", attribute);
+			case IS_NOT_NULL:
+				return String.format("%s IS NOT NULL", attribute);
+			case NOT_IN:
+				return String.format("%s NOT IN (%s)", attribute, provider.nextCollection(part).getPlaceholder());
+			case IN:
+				return String.format("%s IN (%s)", attribute, provider.nextCollection(part).getPlaceholder());
+			case STARTING_WITH:
+			case ENDING_WITH:
+			case CONTAINING:
+			case LIKE:
+				return String.format("%s LIKE %s", upperIfIgnoreCase(part, attribute),
+						upperIfIgnoreCase(part, provider.next(part).getPlaceholder()));
+			case NOT_LIKE:
+				return String.format("%s NOT LIKE %s", upperIfIgnoreCase(part, attribute),
+						upperIfIgnoreCase(part, provider.next(part).getPlaceholder()));
+			case TRUE:
+				return String.format("%s = 1", attribute);
+			case FALSE:
+				return String.format("%s = 0", attribute);
+			case SIMPLE_PROPERTY:
+				ParameterMetadata expression = provider.next(part);
+				return expression.isIsNullParameter() ? String.format("%s IS NULL", attribute) : String.format("%s = %s",
+						upperIfIgnoreCase(part, attribute), upperIfIgnoreCase(part, expression.getPlaceholder()));
+			case NEGATING_SIMPLE_PROPERTY:
+				return String.format("%s <> %s", upperIfIgnoreCase(part, attribute),
+						upperIfIgnoreCase(part, provider.next(part).getPlaceholder()));
+			default:
+				throw new IllegalArgumentException("Unsupported keyword " + part.getType());
+		}
+	}
+
+	/**
+	 * Returns the FlexibleSearch reference of the given {@link PropertyPath}, e.g. {@code {x.code}}. Nested paths like
+	 * {@code catalogVersion.catalog.id} join the referenced types and reference the attribute of the last joined type,
+	 * e.g. {@code {j1.id}}.
+	 * 
+	 * @param property must not be {@literal null}.
+	 * @return
+	 */
+	protected String toAttributeReference(PropertyPath property) {
+
+		String alias = ALIAS;
+		String path = null;
+		PropertyPath segment = property;
+
+		while (segment.hasNext()) {
+
+			path = path == null ? segment.getSegment() : path + "." + segment.getSegment();
+			alias = join(alias, segment, path);
+			segment = segment.next();
+		}
+
+		return String.format("{%s.%s}", alias, segment.getSegment());
+	}
+
+	/**
+	 * Joins the type referenced by the given {@link PropertyPath} segment unless the given path was joined before and
+	 * returns the alias of the joined type. Joins are left outer joins, so criteria combined by {@literal OR} still
+	 * match items not referencing any item.
+	 * 
+	 * @param parentAlias the alias of the type owning the segment, must not be {@literal null}.
+	 * @param segment must not be {@literal null}.
+	 * @param path the dot path up to and including the segment, must not be {@literal null}.
+	 * @return
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private String join(String parentAlias, PropertyPath segment, String path) {
+
+		String alias = joinAliases.get(path);
+
+		if (alias != null) {
+			return alias;
+		}
+
+		Class<?> type = segment.getType();
+
+		if (segment.isCollection() || !ItemModel.class.isAssignableFrom(type)) {
+			throw new IllegalArgumentException(String.format(
+					"Can not join %s, only properties referencing a single item can be traversed!", path));
+		}
+
+		alias = JOIN_ALIAS_PREFIX + joinAliases.size();
+		String joinedTypecode = new HybrisEntityMetadata(type).getTypecode();
+
+		joins.append(" LEFT JOIN ").append(joinedTypecode).append(" AS ").append(alias);
+		joins.append(" ON {").append(parentAlias).append(".").append(segment.getSegment()).append("} = {");
+		joins.append(alias).append(".PK}");
+		joinAliases.put(path, alias);
+
+		return alias;
+	}
+
+	/**
+	 * Applies an {@code UPPER} conversion to the given expression in case the given {@link Part} requires ignoring case.
+	 * 
+	 * @param part must not be {@literal null}.
+	 * @param expression must not be {@literal null}.
+	 * @return
+	 */
+	private static String upperIfIgnoreCase(Part part, String expression) {
+
+		boolean canUpperCase = String.class.equals(part.getProperty().getLeafProperty().getType());
+
+		switch (part.shouldIgnoreCase()) {
+			case ALWAYS:
+				Assert.state(canUpperCase, "Unable to ignore case of " + part.getProperty().getLeafProperty().getType()
+						.getName() + " types, the property '" + part.getProperty().getSegment() + "' must reference a String");
+				return String.format("UPPER(%s)", expression);
+			case WHEN_POSSIBLE:
+				if (canUpperCase) {
+					return String.format("UPPER(%s)", expression);
+				}
+			default:
+				return expression;
+		}
+	}
+}
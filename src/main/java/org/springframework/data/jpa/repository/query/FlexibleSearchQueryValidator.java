@@ -0,0 +1,269 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.jpa.repository.query;
+
+import static org.springframework.data.jpa.repository.utils.ParallelExecutionUtils.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+
+import de.hybris.platform.core.model.type.ComposedTypeModel;
+import de.hybris.platform.servicelayer.exceptions.UnknownIdentifierException;
+import de.hybris.platform.servicelayer.type.TypeService;
+import org.springframework.data.hybris.repository.query.ParsedFlexibleSearchQuery;
+import org.springframework.data.hybris.repository.query.ParsedFlexibleSearchQuery.Parameter;
+import org.springframework.data.jpa.repository.query.JpaParameters.JpaParameter;
+import org.springframework.data.repository.query.RepositoryQuery;
+
+/**
+ * Validates declared FlexibleSearch queries against the type system without executing them: the selected and joined
+ * types as well as the attributes referenced by the outer query have to exist, parameters have to match the
+ * parameters of the query method. Queries are registered while a repository is created and validated at once, in
+ * parallel if an {@link ExecutorService} is given.
+ * 
+ * @author Kamill Sokol
+ */
+public class FlexibleSearchQueryValidator {
+
+	private final Queue<AbstractStringBasedJpaQuery> registeredQueries;
+
+	/**
+	 * Creates a new {@link FlexibleSearchQueryValidator} resolving types with the {@link TypeService} of the query
+	 * methods.
+	 */
+	public FlexibleSearchQueryValidator() {
+		this.registeredQueries = new ConcurrentLinkedQueue<AbstractStringBasedJpaQuery>();
+	}
+
+	/**
+	 * Registers the given query for validation. Queries not declared as string, i.e. derived from the method name, are
+	 * ignored.
+	 * 
+	 * @param query can be {@literal null}.
+	 */
+	public void register(RepositoryQuery query) {
+
+		if (query instanceof AbstractStringBasedJpaQuery) {
+			registeredQueries.add((AbstractStringBasedJpaQuery) query);
+		}
+	}
+
+	/**
+	 * Validates all queries registered so far and forgets about them. The given {@link ExecutorService} has to activate
+	 * the Hybris tenant on its threads. Queries are validated in the calling thread if none is given.
+	 * 
+	 * @param executorService can be {@literal null}.
+	 * @throws IllegalArgumentException in case a query is invalid.
+	 */
+	public void validateRegisteredQueries(ExecutorService executorService) {
+
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		AbstractStringBasedJpaQuery query;
+
+		while ((query = registeredQueries.poll()) != null) {
+
+			final AbstractStringBasedJpaQuery queryToValidate = query;
+
+			tasks.add(new Callable<Void>() {
+
+				public Void call() {
+					validate(queryToValidate);
+					return null;
+				}
+			});
+		}
+
+		invokeAll(executorService, tasks, "validating queries");
+	}
+
+	/**
+	 * Validates the query of the given {@link AbstractStringBasedJpaQuery} and its count query if the method is paged.
+	 * 
+	 * @param query must not be {@literal null}.
+	 * @throws IllegalArgumentException in case a query is invalid.
+	 */
+	void validate(AbstractStringBasedJpaQuery query) {
+
+		JpaQueryMethod method = query.getQueryMethod();
+
+		validate(query.getQuery().getParsedQuery(), method);
+
+		if (method.isPageQuery()) {
+			validate(query.getCountQuery().getParsedQuery(), method);
+		}
+	}
+
+	private void validate(ParsedFlexibleSearchQuery query, JpaQueryMethod method) {
+
+		String problem = findTypeProblem(query, method.getTypeService());
+
+		if (problem == null) {
+			problem = findParameterProblem(query, method.getParameters());
+		}
+
+		if (problem != null) {
+			throw new IllegalArgumentException(String.format("Validation failed for query %s of method %s: %s!",
+					query.getQuery(), method, problem));
+		}
+	}
+
+	/**
+	 * Resolves the types selected from and the attributes referenced by the outer query.
+	 * 
+	 * @param query must not be {@literal null}.
+	 * @param typeService must not be {@literal null}.
+	 * @return a description of the first problem found or {@literal null} if there is none.
+	 */
+	private static String findTypeProblem(ParsedFlexibleSearchQuery query, TypeService typeService) {
+
+		if (query.getTypeCode() == null) {
+			// the outer query selects from subqueries only
+			return null;
+		}
+
+		Map<String, ComposedTypeModel> types = new HashMap<String, ComposedTypeModel>();
+
+		try {
+
+			if (query.getAlias() == null) {
+				types.put(null, typeService.getComposedTypeForCode(query.getTypeCode()));
+			}
+
+			for (Map.Entry<String, String> entry : query.getAliasedTypeCodes().entrySet()) {
+				types.put(entry.getKey(), typeService.getComposedTypeForCode(entry.getValue()));
+			}
+
+		} catch (UnknownIdentifierException e) {
+			return e.getMessage();
+		}
+
+		for (String reference : query.getAttributeReferences()) {
+
+			String attribute = stripModifiers(reference, types.keySet());
+			int separator = indexOfAliasSeparator(attribute);
+			String alias = separator < 0 ? null : attribute.substring(0, separator);
+			ComposedTypeModel type = types.get(alias);
+
+			if (type == null) {
+				return String.format("unknown alias in attribute reference {%s}", reference);
+			}
+
+			try {
+				typeService.getAttributeDescriptor(type, attribute.substring(separator + 1));
+			} catch (UnknownIdentifierException e) {
+				return String.format("unknown attribute in attribute reference {%s}", reference);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Checks positional parameters to be in the range of the bindable method parameters and named parameters to match a
+	 * named method parameter. Session parameters like {@code ?session.user} are provided by Hybris.
+	 * 
+	 * @param query must not be {@literal null}.
+	 * @param parameters must not be {@literal null}.
+	 * @return a description of the first problem found or {@literal null} if there is none.
+	 */
+	private static String findParameterProblem(ParsedFlexibleSearchQuery query, JpaParameters parameters) {
+
+		JpaParameters bindableParameters = parameters.getBindableParameters();
+		Set<String> names = new HashSet<String>();
+
+		for (JpaParameter parameter : bindableParameters) {
+			if (parameter.isNamedParameter()) {
+				names.add(parameter.getName());
+			}
+		}
+
+		for (Parameter parameter : query.getParameters()) {
+
+			String name = parameter.getName();
+
+			if (parameter.isPositional()) {
+
+				int position = name.length() > 9 ? Integer.MAX_VALUE : Integer.parseInt(name);
+
+				if (position < 1 || position > bindableParameters.getNumberOfParameters()) {
+					return String.format("parameter ?%s exceeds the %d bindable method parameters", name,
+							bindableParameters.getNumberOfParameters());
+				}
+
+			} else if (name.indexOf('.') < 0 && !names.contains(name)) {
+				return String.format("parameter ?%s does not match a named method parameter", name);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Strips the trailing outer join and language modifiers of the given attribute reference, e.g. {@code p.name[en]:o}
+	 * becomes {@code p.name}. A trailing {@code :o} following a known alias, as in {@code p:o}, references attribute
+	 * {@code o} and is kept.
+	 * 
+	 * @param reference must not be {@literal null}.
+	 * @param aliases the aliases of the types selected from, must not be {@literal null}.
+	 * @return
+	 */
+	private static String stripModifiers(String reference, Set<String> aliases) {
+
+		String attribute = reference.trim();
+
+		if (attribute.endsWith(":o") || attribute.endsWith(":O")) {
+
+			String head = attribute.substring(0, attribute.length() - 2).trim();
+
+			if (!aliases.contains(head)) {
+				attribute = head;
+			}
+		}
+
+		int bracket = attribute.indexOf('[');
+
+		return bracket < 0 ? attribute : attribute.substring(0, bracket).trim();
+	}
+
+	/**
+	 * Returns the index of the {@code .} or {@code :} separating alias and attribute, e.g. in {@code p.code} or
+	 * {@code p:code}, or {@literal -1} if the attribute reference has no alias.
+	 * 
+	 * @param attribute must not be {@literal null}.
+	 * @return
+	 */
+	private static int indexOfAliasSeparator(String attribute) {
+
+		for (int i = 0; i < attribute.length(); i++) {
+
+			char c = attribute.charAt(i);
+
+			if (c == '.' || c == ':') {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+}
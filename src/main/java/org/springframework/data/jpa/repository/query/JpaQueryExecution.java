@@ -15,22 +15,26 @@
  */
 package org.springframework.data.jpa.repository.query;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
-import javax.persistence.EntityManager;
-import javax.persistence.NoResultException;
-import javax.persistence.Query;
-import javax.persistence.TypedQuery;
-
+import de.hybris.platform.core.PK;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.query.ParameterAccessor;
 import org.springframework.data.repository.query.Parameters;
 import org.springframework.data.repository.query.ParametersParameterAccessor;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 
 /**
  * Set of classes to contain query execution strategies. Depending (mostly) on the return type of a
@@ -38,6 +42,7 @@ import org.springframework.util.Assert;
  * in various flavours.
  * 
  * @author Oliver Gierke
+ * @author Kamill Sokol
  */
 public abstract class JpaQueryExecution {
 
@@ -55,13 +60,7 @@ public abstract class JpaQueryExecution {
 		Assert.notNull(query);
 		Assert.notNull(values);
 
-		Object result;
-
-		try {
-			result = doExecute(query, values);
-		} catch (NoResultException e) {
-			return null;
-		}
+		Object result = doExecute(query, values);
 
 		if (result == null) {
 			return result;
@@ -70,7 +69,8 @@ public abstract class JpaQueryExecution {
 		JpaQueryMethod queryMethod = query.getQueryMethod();
 		Class<?> requiredType = queryMethod.getReturnType();
 
-		if (void.class.equals(requiredType) || requiredType.isAssignableFrom(result.getClass())) {
+		if (void.class.equals(requiredType)
+				|| ClassUtils.resolvePrimitiveIfNecessary(requiredType).isAssignableFrom(result.getClass())) {
 			return result;
 		}
 
@@ -86,6 +86,23 @@ public abstract class JpaQueryExecution {
 	 */
 	protected abstract Object doExecute(AbstractJpaQuery query, Object[] values);
 
+	/**
+	 * Runs the given {@link FlexibleSearchQuery} and returns its result rows. A query limited to zero results is not run
+	 * at all.
+	 * 
+	 * @param repositoryQuery must not be {@literal null}.
+	 * @param query must not be {@literal null}.
+	 * @return
+	 */
+	protected static <T> List<T> search(AbstractJpaQuery repositoryQuery, FlexibleSearchQuery query) {
+
+		if (query.getCount() == 0) {
+			return Collections.emptyList();
+		}
+
+		return repositoryQuery.getFlexibleSearchService().<T> search(query).getResult();
+	}
+
 	/**
 	 * Executes the {@link AbstractStringBasedJpaQuery} to return a simple collection of entities.
 	 */
@@ -93,7 +110,7 @@ public abstract class JpaQueryExecution {
 
 		@Override
 		protected Object doExecute(AbstractJpaQuery query, Object[] values) {
-			return query.createQuery(values).getResultList();
+			return search(query, query.createQuery(values));
 		}
 	}
 
@@ -111,21 +128,22 @@ public abstract class JpaQueryExecution {
 		}
 
 		@Override
-		@SuppressWarnings("unchecked")
 		protected Object doExecute(AbstractJpaQuery repositoryQuery, Object[] values) {
 
 			// Execute query to compute total
-			TypedQuery<Long> projection = repositoryQuery.createCountQuery(values);
-
-			List<Long> totals = projection.getResultList();
+			List<Long> totals = search(repositoryQuery, repositoryQuery.createCountQuery(values));
 			Long total = totals.size() == 1 ? totals.get(0) : totals.size();
+			Integer maxResults = repositoryQuery.getQueryMethod().getMaxResults();
+
+			if (maxResults != null && total > maxResults) {
+				total = maxResults.longValue();
+			}
 
-			Query query = repositoryQuery.createQuery(values);
 			ParameterAccessor accessor = new ParametersParameterAccessor(parameters, values);
 			Pageable pageable = accessor.getPageable();
 
-			List<Object> content = pageable == null || total > pageable.getOffset() ? query.getResultList() : Collections
-					.emptyList();
+			List<Object> content = pageable == null || total > pageable.getOffset() ? JpaQueryExecution.<Object> search(
+					repositoryQuery, repositoryQuery.createQuery(values)) : Collections.emptyList();
 
 			return new PageImpl<Object>(content, pageable, total);
 		}
@@ -139,45 +157,164 @@ public abstract class JpaQueryExecution {
 		@Override
 		protected Object doExecute(AbstractJpaQuery query, Object[] values) {
 
-			return query.createQuery(values).getSingleResult();
+			List<Object> result = search(query, query.createQuery(values));
+
+			if (result.size() > 1) {
+				throw new IncorrectResultSizeDataAccessException(1, result.size());
+			}
+
+			return result.isEmpty() ? null : result.get(0);
 		}
 	}
 
 	/**
-	 * Executes a modifying query such as an update, insert or delete.
+	 * Executes a {@link AbstractJpaQuery} to return a single scalar value, e.g. the result of an aggregate function. The
+	 * value is read as the type returned by the query method, a missing value of a primitive type is returned as zero.
 	 */
-	static class ModifyingExecution extends JpaQueryExecution {
+	static class ScalarExecution extends JpaQueryExecution {
 
-		private final EntityManager em;
+		@Override
+		protected Object doExecute(AbstractJpaQuery query, Object[] values) {
 
-		/**
-		 * Creates an execution that automatically clears the given {@link EntityManager} after execution if the given
-		 * {@link EntityManager} is not {@literal null}.
-		 * 
-		 * @param em
-		 */
-		public ModifyingExecution(JpaQueryMethod method, EntityManager em) {
+			Class<?> returnType = query.getQueryMethod().getReturnType();
 
-			Class<?> returnType = method.getReturnType();
+			FlexibleSearchQuery flexibleSearchQuery = query.createQuery(values);
+			flexibleSearchQuery.setResultClassList(Arrays.asList(ClassUtils.resolvePrimitiveIfNecessary(returnType)));
 
-			boolean isVoid = void.class.equals(returnType) || Void.class.equals(returnType);
-			boolean isInt = int.class.equals(returnType) || Integer.class.equals(returnType);
+			List<Object> result = search(query, flexibleSearchQuery);
 
-			Assert.isTrue(isInt || isVoid, "Modifying queries can only use void or int/Integer as return type!");
+			if (result.size() > 1) {
+				throw new IncorrectResultSizeDataAccessException(1, result.size());
+			}
 
-			this.em = em;
+			Object value = result.isEmpty() ? null : result.get(0);
+			return value == null && returnType.isPrimitive() ? 0 : value;
 		}
+	}
+
+	/**
+	 * Executes a {@link AbstractJpaQuery} selecting a key and a value per row and groups the values by key into a
+	 * {@link Map}. Values of collection valued maps are collected into a {@link List} per key, other maps take the
+	 * value of the single row per key. No model is instantiated for the grouped items.
+	 */
+	static class GroupingExecution extends JpaQueryExecution {
 
 		@Override
+		@SuppressWarnings("unchecked")
 		protected Object doExecute(AbstractJpaQuery query, Object[] values) {
 
-			int result = query.createQuery(values).executeUpdate();
+			JpaQueryMethod method = query.getQueryMethod();
 
-			if (em != null) {
-				em.clear();
+			FlexibleSearchQuery flexibleSearchQuery = query.createQuery(values);
+			flexibleSearchQuery.setResultClassList(Arrays.asList(method.getGroupingKeyType(),
+					method.getGroupingValueType()));
+
+			boolean intoCollections = method.isGroupingIntoCollections();
+			Map<Object, Object> groups = new LinkedHashMap<Object, Object>();
+
+			for (List<Object> row : JpaQueryExecution.<List<Object>> search(query, flexibleSearchQuery)) {
+
+				if (!intoCollections) {
+					groups.put(row.get(0), row.get(1));
+					continue;
+				}
+
+				List<Object> group = (List<Object>) groups.get(row.get(0));
+
+				if (group == null) {
+					group = new ArrayList<Object>();
+					groups.put(row.get(0), group);
+				}
+
+				group.add(row.get(1));
 			}
 
-			return result;
+			return groups;
+		}
+	}
+
+	/**
+	 * Executes a {@link AbstractJpaQuery} to check whether at least one item matches. Reads at most a single
+	 * {@link PK} instead of any model.
+	 */
+	static class ExistsExecution extends JpaQueryExecution {
+
+		@Override
+		protected Object doExecute(AbstractJpaQuery query, Object[] values) {
+
+			FlexibleSearchQuery flexibleSearchQuery = query.createQuery(values);
+			flexibleSearchQuery.setResultClassList(Arrays.asList(PK.class));
+			flexibleSearchQuery.setCount(1);
+
+			return !search(query, flexibleSearchQuery).isEmpty();
+		}
+	}
+
+	/**
+	 * Executes a {@link PartTreeJpaQuery} to remove all matching items. Reads the {@link PK}s of at most
+	 * {@code batchSize} matches at once in ascending order, resolves and removes them through the {@link ModelService}
+	 * and continues after the last {@link PK} read until no more matches are left. Returns the number of items actually
+	 * removed.
+	 */
+	static class DeleteExecution extends JpaQueryExecution {
+
+		private final ModelService modelService;
+		private final int batchSize;
+
+		public DeleteExecution(ModelService modelService, int batchSize) {
+
+			Assert.notNull(modelService);
+			Assert.isTrue(batchSize > 0, "Batch size must be greater than zero!");
+
+			this.modelService = modelService;
+			this.batchSize = batchSize;
+		}
+
+		@Override
+		protected Object doExecute(AbstractJpaQuery query, Object[] values) {
+
+			Assert.isInstanceOf(PartTreeJpaQuery.class, query);
+
+			PartTreeJpaQuery deleteQuery = (PartTreeJpaQuery) query;
+			long deleted = 0;
+			PK lastSeen = null;
+			List<PK> pks;
+
+			do {
+
+				FlexibleSearchQuery flexibleSearchQuery = deleteQuery.createDeleteQuery(values, lastSeen);
+				flexibleSearchQuery.setResultClassList(Arrays.asList(PK.class));
+				flexibleSearchQuery.setStart(0);
+				flexibleSearchQuery.setCount(batchSize);
+
+				pks = search(query, flexibleSearchQuery);
+
+				if (pks.isEmpty()) {
+					break;
+				}
+
+				List<Object> models = new ArrayList<Object>(pks.size());
+
+				for (PK pk : pks) {
+					models.add(modelService.get(pk));
+				}
+
+				modelService.removeAll(models);
+
+				for (Object model : models) {
+
+					if (modelService.isRemoved(model)) {
+						deleted++;
+					}
+
+					modelService.detach(model);
+				}
+
+				lastSeen = pks.get(pks.size() - 1);
+
+			} while (pks.size() == batchSize);
+
+			return deleted;
 		}
 	}
 }
@@ -15,33 +15,36 @@
  */
 package org.springframework.data.jpa.repository.query;
 
-import static org.springframework.core.annotation.AnnotationUtils.*;
-
 import java.lang.reflect.Method;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import javax.persistence.LockModeType;
-
+import de.hybris.platform.servicelayer.type.TypeService;
 import org.springframework.core.annotation.AnnotationUtils;
-import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.hybris.repository.GroupBy;
+import org.springframework.data.hybris.repository.Query;
+import org.springframework.data.hybris.repository.core.HybrisEntityMetadata;
 import org.springframework.data.jpa.repository.Modifying;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.jpa.repository.support.DefaultJpaEntityMetadata;
-import org.springframework.data.jpa.repository.support.JpaEntityMetadata;
 import org.springframework.data.repository.core.RepositoryMetadata;
 import org.springframework.data.repository.query.Parameter;
-import org.springframework.data.repository.query.Parameters;
 import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.data.util.ClassTypeInformation;
+import org.springframework.data.util.TypeInformation;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
 /**
- * JPA specific extension of {@link QueryMethod}.
+ * Hybris specific extension of {@link QueryMethod}.
  * 
  * @author Oliver Gierke
  * @author Thomas Darimont
+ * @author Kamill Sokol
  */
 public class JpaQueryMethod extends QueryMethod {
 
@@ -59,29 +62,65 @@ public class JpaQueryMethod extends QueryMethod {
 		NATIVE_ARRAY_TYPES = Collections.unmodifiableSet(types);
 	}
 
-	private final QueryExtractor extractor;
+	private static final Pattern LIMITING_QUERY = Pattern
+			.compile("^(?:find|read|get|query)(?:Distinct)?(?:First|Top)(\\d*)(?:Distinct)?(?:\\p{Lu}.*?)??By");
+
+	private final TypeService typeService;
 	private final Method method;
+	private final Integer maxResults;
+	private final GroupBy groupBy;
 
 	/**
 	 * Creates a {@link JpaQueryMethod}.
 	 * 
 	 * @param method must not be {@literal null}
-	 * @param extractor must not be {@literal null}
 	 * @param metadata must not be {@literal null}
+	 * @param typeService must not be {@literal null}
 	 */
-	public JpaQueryMethod(Method method, RepositoryMetadata metadata, QueryExtractor extractor) {
+	public JpaQueryMethod(Method method, RepositoryMetadata metadata, TypeService typeService) {
 
 		super(method, metadata);
 
 		Assert.notNull(method, "Method must not be null!");
-		Assert.notNull(extractor, "Query extractor must not be null!");
+		Assert.notNull(typeService, "Type service must not be null!");
 
 		this.method = method;
-		this.extractor = extractor;
+		this.typeService = typeService;
+		this.maxResults = detectMaxResults(method.getName());
+		this.groupBy = method.getAnnotation(GroupBy.class);
 
-		Assert.isTrue(!(isModifyingQuery() && getParameters().hasSpecialParameter()),
-				String.format("Modifying method must not contain %s!", Parameters.TYPES));
+		Assert.isTrue(method.getAnnotation(Modifying.class) == null,
+				String.format("FlexibleSearch does not support modifying queries, found @Modifying on method %s!", method));
 		assertParameterNamesInAnnotatedQuery();
+
+		if (groupBy != null) {
+			Assert.isTrue(Map.class.isAssignableFrom(method.getReturnType()),
+					String.format("Grouping query method %s must return a Map!", method));
+		}
+	}
+
+	/**
+	 * Returns the maximum number of results declared by a {@code First} or {@code Top} keyword in the given method name,
+	 * e.g. {@literal 10} for {@code findTop10ByOrderByCreationtimeDesc} and {@literal 1} for {@code findFirstByCode}.
+	 * 
+	 * @param methodName must not be {@literal null}.
+	 * @return the maximum number of results or {@literal null} if the method name does not limit the results.
+	 */
+	private static Integer detectMaxResults(String methodName) {
+
+		Matcher matcher = LIMITING_QUERY.matcher(methodName);
+
+		if (!matcher.find()) {
+			return null;
+		}
+
+		String limit = matcher.group(1);
+		Integer maxResults = limit.length() == 0 ? 1 : Integer.valueOf(limit);
+
+		Assert.isTrue(maxResults > 0, String.format("Maximum number of results must be greater than zero in %s!",
+				methodName));
+
+		return maxResults;
 	}
 
 	private void assertParameterNamesInAnnotatedQuery() {
@@ -98,7 +137,7 @@ public class JpaQueryMethod extends QueryMethod {
 				continue;
 			}
 
-			if (!annotatedQuery.contains(String.format(":%s", parameter.getName()))) {
+			if (!annotatedQuery.contains(String.format("?%s", parameter.getName()))) {
 				throw new IllegalStateException(String.format(
 						"Using named parameters for method %s but parameter '%s' not found in annotated query '%s'!", method,
 						parameter.getName(), annotatedQuery));
@@ -112,115 +151,124 @@ public class JpaQueryMethod extends QueryMethod {
 	 */
 	@Override
 	@SuppressWarnings({ "rawtypes", "unchecked" })
-	public JpaEntityMetadata<?> getEntityInformation() {
-		return new DefaultJpaEntityMetadata(getDomainClass());
+	public HybrisEntityMetadata<?> getEntityInformation() {
+		return new HybrisEntityMetadata(getDomainClass());
 	}
 
 	/**
-	 * Returns whether the finder is a modifying one.
+	 * Returns the {@link TypeService} to resolve type and attribute metadata with.
 	 * 
 	 * @return
 	 */
-	@Override
-	public boolean isModifyingQuery() {
+	TypeService getTypeService() {
+		return typeService;
+	}
 
-		return null != method.getAnnotation(Modifying.class);
+	/**
+	 * Returns the maximum number of results the method declares by a {@code First} or {@code Top} keyword, e.g.
+	 * {@code findFirst10ByOrderByCreationtimeDesc}.
+	 * 
+	 * @return the maximum number of results or {@literal null} if the results are not limited.
+	 */
+	Integer getMaxResults() {
+		return maxResults;
 	}
 
 	/**
-	 * Returns the {@link LockModeType} to be used for the query.
+	 * Returns whether the method returns a single scalar value like a number or date, e.g. the result of an aggregate
+	 * function, instead of models.
 	 * 
 	 * @return
 	 */
-	LockModeType getLockModeType() {
+	boolean isScalarQuery() {
 
-		Lock annotation = findAnnotation(method, Lock.class);
-		return (LockModeType) AnnotationUtils.getValue(annotation);
+		Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(method.getReturnType());
+		return Number.class.isAssignableFrom(type) || Date.class.isAssignableFrom(type);
 	}
 
 	/**
-	 * Returns the {@link QueryExtractor}.
+	 * Returns whether the method is annotated with {@link GroupBy} and thus returns its results grouped into a
+	 * {@link Map}.
 	 * 
 	 * @return
 	 */
-	QueryExtractor getQueryExtractor() {
-
-		return extractor;
+	boolean isGroupingQuery() {
+		return groupBy != null;
 	}
 
 	/**
-	 * Returns the actual return type of the method.
+	 * Returns the property declared by the {@link GroupBy} annotation or {@literal null} if none was specified.
 	 * 
 	 * @return
 	 */
-	Class<?> getReturnType() {
-
-		return method.getReturnType();
+	String getGroupingProperty() {
+		return groupBy == null || !StringUtils.hasText(groupBy.value()) ? null : groupBy.value();
 	}
 
 	/**
-	 * Returns the query string declared in a {@link Query} annotation or {@literal null} if neither the annotation found
-	 * nor the attribute was specified.
+	 * Returns the key type of the {@link Map} returned by a grouping query method.
 	 * 
 	 * @return
 	 */
-	String getAnnotatedQuery() {
-
-		String query = getAnnotationValue("value", String.class);
-		return StringUtils.hasText(query) ? query : null;
+	Class<?> getGroupingKeyType() {
+		return ClassTypeInformation.fromReturnTypeOf(method).getComponentType().getType();
 	}
 
 	/**
-	 * Returns the countQuery string declared in a {@link Query} annotation or {@literal null} if neither the annotation
-	 * found nor the attribute was specified.
+	 * Returns the type of the values read for a grouping query method, i.e. the element type of a collection valued
+	 * {@link Map} or its value type otherwise.
 	 * 
 	 * @return
 	 */
-	String getCountQuery() {
+	Class<?> getGroupingValueType() {
 
-		String countQuery = getAnnotationValue("countQuery", String.class);
-		return StringUtils.hasText(countQuery) ? countQuery : null;
+		TypeInformation<?> valueType = ClassTypeInformation.fromReturnTypeOf(method).getMapValueType();
+		TypeInformation<?> type = valueType.isCollectionLike() ? valueType.getComponentType() : valueType;
+
+		return ClassUtils.resolvePrimitiveIfNecessary(type.getType());
 	}
 
 	/**
-	 * Returns whether the backing query is a native one.
+	 * Returns whether a grouping query method collects all values of a key into a collection.
 	 * 
 	 * @return
 	 */
-	boolean isNativeQuery() {
-		return getAnnotationValue("nativeQuery", Boolean.class).booleanValue();
+	boolean isGroupingIntoCollections() {
+		return ClassTypeInformation.fromReturnTypeOf(method).getMapValueType().isCollectionLike();
 	}
 
-	/* 
-	 * (non-Javadoc)
-	 * @see org.springframework.data.repository.query.QueryMethod#getNamedQueryName()
+	/**
+	 * Returns the actual return type of the method.
+	 * 
+	 * @return
 	 */
-	@Override
-	public String getNamedQueryName() {
+	Class<?> getReturnType() {
 
-		String annotatedName = getAnnotationValue("name", String.class);
-		return StringUtils.hasText(annotatedName) ? annotatedName : super.getNamedQueryName();
+		return method.getReturnType();
 	}
 
 	/**
-	 * Returns the name of the {@link NamedQuery} that shall be used for count queries.
+	 * Returns the query string declared in a {@link Query} annotation or {@literal null} if neither the annotation found
+	 * nor the attribute was specified.
 	 * 
 	 * @return
 	 */
-	String getNamedCountQueryName() {
+	String getAnnotatedQuery() {
 
-		String annotatedName = getAnnotationValue("countName", String.class);
-		return StringUtils.hasText(annotatedName) ? annotatedName : getNamedQueryName() + ".count";
+		String query = getAnnotationValue("value", String.class);
+		return StringUtils.hasText(query) ? query : null;
 	}
 
 	/**
-	 * Returns whether we should clear automatically for modifying queries.
+	 * Returns the countQuery string declared in a {@link Query} annotation or {@literal null} if neither the annotation
+	 * found nor the attribute was specified.
 	 * 
 	 * @return
 	 */
-	boolean getClearAutomatically() {
+	String getCountQuery() {
 
-		return (Boolean) AnnotationUtils.getValue(method.getAnnotation(Modifying.class), "clearAutomatically");
+		String countQuery = getAnnotationValue("countQuery", String.class);
+		return StringUtils.hasText(countQuery) ? countQuery : null;
 	}
 
 	/**
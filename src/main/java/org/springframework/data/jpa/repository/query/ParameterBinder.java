@@ -15,10 +15,7 @@
  */
 package org.springframework.data.jpa.repository.query;
 
-import java.util.Date;
-
-import javax.persistence.Query;
-
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.query.JpaParameters.JpaParameter;
@@ -26,11 +23,13 @@ import org.springframework.data.repository.query.Parameters;
 import org.springframework.util.Assert;
 
 /**
- * {@link ParameterBinder} is used to bind method parameters to a {@link Query}. This is usually done whenever an
- * {@link AbstractJpaQuery} is executed.
+ * {@link ParameterBinder} is used to bind method parameters to a {@link FlexibleSearchQuery}. This is usually done
+ * whenever an {@link AbstractJpaQuery} is executed. FlexibleSearch only knows named parameters, so positional
+ * parameters like {@code ?1} are bound by their position rendered as name.
  * 
  * @author Oliver Gierke
  * @author Thomas Darimont
+ * @author Kamill Sokol
  */
 public class ParameterBinder {
 
@@ -92,12 +91,12 @@ public class ParameterBinder {
 	}
 
 	/**
-	 * Binds the parameters to the given {@link Query}.
+	 * Binds the parameters to the given {@link FlexibleSearchQuery}.
 	 * 
 	 * @param query
 	 * @return
 	 */
-	public <T extends Query> T bind(T query) {
+	public FlexibleSearchQuery bind(FlexibleSearchQuery query) {
 
 		int methodParameterPosition = 0;
 		int queryParameterPosition = 1;
@@ -116,22 +115,8 @@ public class ParameterBinder {
 		return query;
 	}
 
-	protected void bind(Query query, JpaParameter parameter, Object value, int position) {
-
-		if (parameter.isTemporalParameter()) {
-			if (hasNamedParameter(query) && parameter.isNamedParameter()) {
-				query.setParameter(parameter.getName(), (Date) value, parameter.getTemporalType());
-			} else {
-				query.setParameter(position, (Date) value, parameter.getTemporalType());
-			}
-			return;
-		}
-
-		if (hasNamedParameter(query) && parameter.isNamedParameter()) {
-			query.setParameter(parameter.getName(), value);
-		} else {
-			query.setParameter(position, value);
-		}
+	protected void bind(FlexibleSearchQuery query, JpaParameter parameter, Object value, int position) {
+		query.addQueryParameter(parameter.isNamedParameter() ? parameter.getName() : String.valueOf(position), value);
 	}
 
 	/**
@@ -140,24 +125,38 @@ public class ParameterBinder {
 	 * @param query
 	 * @return
 	 */
-	public Query bindAndPrepare(Query query) {
+	public FlexibleSearchQuery bindAndPrepare(FlexibleSearchQuery query) {
 		return bindAndPrepare(query, parameters);
 	}
 
-	boolean hasNamedParameter(Query query) {
-		return QueryUtils.hasNamedParameter(query);
+	/**
+	 * Returns the {@link JpaParameters} the values are bound for.
+	 * 
+	 * @return
+	 */
+	JpaParameters getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * Returns the method arguments to bind.
+	 * 
+	 * @return
+	 */
+	Object[] getValues() {
+		return values;
 	}
 
-	private Query bindAndPrepare(Query query, Parameters<?, ?> parameters) {
+	private FlexibleSearchQuery bindAndPrepare(FlexibleSearchQuery query, Parameters<?, ?> parameters) {
 
-		Query result = bind(query);
+		FlexibleSearchQuery result = bind(query);
 
 		if (!parameters.hasPageableParameter() || getPageable() == null) {
 			return result;
 		}
 
-		result.setFirstResult(getPageable().getOffset());
-		result.setMaxResults(getPageable().getPageSize());
+		result.setStart(getPageable().getOffset());
+		result.setCount(getPageable().getPageSize());
 
 		return result;
 	}
@@ -22,51 +22,53 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.ParameterExpression;
-
 import org.springframework.data.repository.query.Parameter;
 import org.springframework.data.repository.query.Parameters;
 import org.springframework.data.repository.query.ParametersParameterAccessor;
 import org.springframework.data.repository.query.parser.Part;
 import org.springframework.data.repository.query.parser.Part.Type;
 import org.springframework.util.Assert;
-import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
 
 /**
- * Helper class to allow easy creation of {@link ParameterMetadata}s.
+ * Helper class to allow easy creation of {@link ParameterMetadata}s. Every bindable method parameter gets a generated
+ * FlexibleSearch parameter name, {@code p0}, {@code p1} and so on, in the order of the parts consuming them.
  * 
  * @author Oliver Gierke
+ * @author Kamill Sokol
  */
 class ParameterMetadataProvider {
 
-	private final CriteriaBuilder builder;
+	private static final String PARAMETER_NAME_PREFIX = "p";
+
 	private final Iterator<? extends Parameter> parameters;
-	private final List<ParameterMetadata<?>> expressions;
+	private final List<ParameterMetadata> expressions;
 	private Iterator<Object> accessor;
 
 	/**
-	 * Creates a new {@link ParameterMetadataProvider} from the given {@link CriteriaBuilder} and
-	 * {@link ParametersParameterAccessor}.
+	 * Creates a new {@link ParameterMetadataProvider} from the given {@link ParametersParameterAccessor}. Parameters
+	 * bound to {@literal null} values are turned into {@literal IS NULL} parameters.
 	 * 
-	 * @param builder must not be {@literal null}.
-	 * @param parameters must not be {@literal null}.
+	 * @param accessor must not be {@literal null}.
 	 */
-	public ParameterMetadataProvider(CriteriaBuilder builder, ParametersParameterAccessor accessor) {
+	public ParameterMetadataProvider(ParametersParameterAccessor accessor) {
 
-		this(builder, accessor.getParameters());
+		this(accessor.getParameters());
 		Assert.notNull(accessor);
 		this.accessor = accessor.iterator();
 	}
 
-	public ParameterMetadataProvider(CriteriaBuilder builder, Parameters<?, ?> parameters) {
+	/**
+	 * Creates a new {@link ParameterMetadataProvider} from the given {@link Parameters}.
+	 * 
+	 * @param parameters must not be {@literal null}.
+	 */
+	public ParameterMetadataProvider(Parameters<?, ?> parameters) {
 
-		Assert.notNull(builder);
+		Assert.notNull(parameters);
 
-		this.builder = builder;
 		this.parameters = parameters.getBindableParameters().iterator();
-		this.expressions = new ArrayList<ParameterMetadata<?>>();
+		this.expressions = new ArrayList<ParameterMetadata>();
 		this.accessor = null;
 	}
 
@@ -75,80 +77,80 @@ class ParameterMetadataProvider {
 	 * 
 	 * @return the expressions
 	 */
-	public List<ParameterMetadata<?>> getExpressions() {
+	public List<ParameterMetadata> getExpressions() {
 		return Collections.unmodifiableList(expressions);
 	}
 
 	/**
 	 * Builds a new {@link ParameterMetadata} for given {@link Part} and the next {@link Parameter}.
 	 * 
-	 * @param <T>
+	 * @param part must not be {@literal null}.
 	 * @return
 	 */
-	@SuppressWarnings("unchecked")
-	public <T> ParameterMetadata<T> next(Part part) {
-
-		Parameter parameter = parameters.next();
-		return (ParameterMetadata<T>) next(part, parameter.getType(), parameter.getName());
+	public ParameterMetadata next(Part part) {
+		return next(part, false);
 	}
 
 	/**
-	 * Builds a new {@link ParameterMetadata} of the given {@link Part} and type. Forwards the underlying
-	 * {@link Parameters} as well.
+	 * Builds a new {@link ParameterMetadata} for given {@link Part} and the next {@link Parameter} whose value is bound
+	 * as {@link Collection}, e.g. for an {@literal IN} clause.
 	 * 
-	 * @param <T>
-	 * @param type must not be {@literal null}.
+	 * @param part must not be {@literal null}.
 	 * @return
 	 */
-	@SuppressWarnings("unchecked")
-	public <T> ParameterMetadata<? extends T> next(Part part, Class<T> type) {
-
-		Parameter parameter = parameters.next();
-		Class<?> typeToUse = ClassUtils.isAssignable(type, parameter.getType()) ? parameter.getType() : type;
-		return (ParameterMetadata<? extends T>) next(part, typeToUse, null);
+	public ParameterMetadata nextCollection(Part part) {
+		return next(part, true);
 	}
 
-	/**
-	 * Builds a new {@link ParameterMetadata} for the given type and name.
-	 * 
-	 * @param <T>
-	 * @param part must not be {@literal null}.
-	 * @param type must not be {@literal null}.
-	 * @param name
-	 * @return
-	 */
-	private <T> ParameterMetadata<T> next(Part part, Class<T> type, String name) {
+	private ParameterMetadata next(Part part, boolean collection) {
+
+		Assert.notNull(part);
 
-		Assert.notNull(type);
+		parameters.next();
 
-		ParameterExpression<T> expression = name == null ? builder.parameter(type) : builder.parameter(type, name);
-		ParameterMetadata<T> value = new ParameterMetadata<T>(expression, part.getType(),
-				accessor == null ? ParameterMetadata.PLACEHOLDER : accessor.next());
+		ParameterMetadata value = new ParameterMetadata(PARAMETER_NAME_PREFIX + expressions.size(), part.getType(),
+				collection, accessor == null ? ParameterMetadata.PLACEHOLDER : accessor.next());
 		expressions.add(value);
 
 		return value;
 	}
 
-	static class ParameterMetadata<T> {
+	/**
+	 * Metadata of a single FlexibleSearch parameter created for a {@link Part}.
+	 * 
+	 * @author Kamill Sokol
+	 */
+	static class ParameterMetadata {
 
 		static final Object PLACEHOLDER = new Object();
 
-		private final ParameterExpression<T> expression;
+		private final String name;
 		private final Type type;
+		private final boolean collection;
 
-		public ParameterMetadata(ParameterExpression<T> expression, Type type, Object value) {
+		public ParameterMetadata(String name, Type type, boolean collection, Object value) {
 
-			this.expression = expression;
+			this.name = name;
 			this.type = value == null && Type.SIMPLE_PROPERTY.equals(type) ? Type.IS_NULL : type;
+			this.collection = collection;
 		}
 
 		/**
-		 * Returns the {@link ParameterExpression}.
+		 * Returns the name the value is bound to.
 		 * 
-		 * @return the expression
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the placeholder referencing the parameter in a FlexibleSearch query, e.g. {@code ?p0}.
+		 * 
+		 * @return
 		 */
-		public ParameterExpression<T> getExpression() {
-			return expression;
+		public String getPlaceholder() {
+			return "?" + name;
 		}
 
 		/**
@@ -161,7 +163,8 @@ class ParameterMetadataProvider {
 		}
 
 		/**
-		 * Prepares the object before it's actually bound to the {@link javax.persistence.Query;}.
+		 * Prepares the object before it's actually bound to the
+		 * {@link de.hybris.platform.servicelayer.search.FlexibleSearchQuery}.
 		 * 
 		 * @param parameter must not be {@literal null}.
 		 * @return
@@ -178,7 +181,7 @@ class ParameterMetadataProvider {
 				case CONTAINING:
 					return String.format("%%%s%%", parameter.toString());
 				default:
-					return Collection.class.equals(expression.getJavaType()) ? toCollection(parameter) : parameter;
+					return collection ? toCollection(parameter) : parameter;
 			}
 		}
 
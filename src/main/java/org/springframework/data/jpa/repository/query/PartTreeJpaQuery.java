@@ -15,50 +15,224 @@
  */
 package org.springframework.data.jpa.repository.query;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-
-import javax.persistence.EntityManager;
-import javax.persistence.Query;
-import javax.persistence.TypedQuery;
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
-
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Order;
+import org.springframework.data.hybris.repository.core.HybrisEntityMetadata;
+import org.springframework.data.hybris.repository.query.SortedQueryCache;
+import org.springframework.data.jpa.repository.query.JpaParameters.JpaParameter;
+import org.springframework.data.jpa.repository.query.JpaQueryExecution.DeleteExecution;
+import org.springframework.data.jpa.repository.query.JpaQueryExecution.ExistsExecution;
 import org.springframework.data.jpa.repository.query.ParameterMetadataProvider.ParameterMetadata;
+import org.springframework.data.mapping.PropertyPath;
 import org.springframework.data.repository.query.ParametersParameterAccessor;
 import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 
 /**
- * A {@link AbstractJpaQuery} implementation based on a {@link PartTree}.
+ * A {@link AbstractJpaQuery} implementation based on a {@link PartTree}. The tree is compiled into a FlexibleSearch
+ * query string once, invocations only bind the method arguments to it. Count projections ({@code countBy…}) and
+ * exists projections ({@code existsBy…}) never load any model, delete methods ({@code deleteBy…}, {@code removeBy…})
+ * only load a chunk of matching models at a time. Aggregate methods like {@code sumTotalPriceByUser} or
+ * {@code maxModifiedtimeByCatalogVersion} are computed by the database, so are the groups of methods annotated with
+ * {@link org.springframework.data.hybris.repository.GroupBy}.
  * 
  * @author Oliver Gierke
  * @author Thomas Darimont
+ * @author Kamill Sokol
  */
 public class PartTreeJpaQuery extends AbstractJpaQuery {
 
-	private final Class<?> domainClass;
+	private static final String FIND_PREFIX = "find";
+	private static final String EXISTS_PREFIX = "exists";
+	private static final String[] DELETE_PREFIXES = { "delete", "remove" };
+	private static final int MAX_NULL_VARIANTS = 64;
+	private static final Pattern AGGREGATE = Pattern.compile("^(sum|min|max|avg)(\\p{Lu}.*?)(By\\p{Lu}.*)$");
+	private static final Pattern LIMITING_SUBJECT = Pattern
+			.compile("^(?:Distinct)?(?:First|Top)\\d*(?:Distinct)?(?:\\p{Lu}.*?)??By");
+
+	private final HybrisEntityMetadata<?> entityMetadata;
+	private final boolean existsProjection;
+	private final boolean deleteProjection;
+	private final String aggregateFunction;
+	private final PropertyPath aggregateProperty;
+	private final PropertyPath groupingProperty;
 	private final PartTree tree;
 	private final JpaParameters parameters;
+	private final ModelService modelService;
+	private final int batchSize;
 
 	private final QueryPreparer query;
 	private final QueryPreparer countQuery;
+	private final QueryPreparer keysetQuery;
 
 	/**
 	 * Creates a new {@link PartTreeJpaQuery}.
 	 * 
 	 * @param method must not be {@literal null}.
-	 * @param em must not be {@literal null}.
+	 * @param flexibleSearchService must not be {@literal null}.
+	 * @param modelService must not be {@literal null}.
+	 * @param batchSize the number of items a delete query removes at once, must be greater than zero.
 	 */
-	public PartTreeJpaQuery(JpaQueryMethod method, EntityManager em) {
+	public PartTreeJpaQuery(JpaQueryMethod method, FlexibleSearchService flexibleSearchService,
+			ModelService modelService, int batchSize) {
+
+		super(method, flexibleSearchService);
+
+		Assert.notNull(modelService);
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than zero!");
 
-		super(method, em);
+		String methodName = method.getName();
+		String existsSubject = getSubject(methodName, EXISTS_PREFIX);
+		String deleteSubject = null;
 
-		this.domainClass = method.getEntityInformation().getJavaType();
-		this.tree = new PartTree(method.getName(), domainClass);
+		for (int i = 0; i < DELETE_PREFIXES.length && deleteSubject == null; i++) {
+			deleteSubject = getSubject(methodName, DELETE_PREFIXES[i]);
+		}
+
+		Matcher aggregate = AGGREGATE.matcher(methodName);
+
+		this.entityMetadata = method.getEntityInformation();
+		this.existsProjection = existsSubject != null;
+		this.deleteProjection = deleteSubject != null;
+		this.aggregateFunction = aggregate.matches() ? aggregate.group(1).toUpperCase(Locale.ENGLISH) : null;
+		this.aggregateProperty = aggregateFunction == null ? null : PropertyPath.from(aggregate.group(2),
+				entityMetadata.getJavaType());
+		this.modelService = modelService;
+		this.batchSize = batchSize;
+
+		if (existsProjection) {
+			methodName = FIND_PREFIX + existsSubject;
+		} else if (deleteProjection) {
+			methodName = FIND_PREFIX + deleteSubject;
+		} else if (aggregateFunction != null) {
+			methodName = FIND_PREFIX + aggregate.group(3);
+		}
+
+		this.tree = new PartTree(methodName, entityMetadata.getJavaType());
 		this.parameters = method.getParameters();
 
-		this.countQuery = new CountQueryPreparer(parameters.potentiallySortsDynamically());
-		this.query = tree.isCountProjection() ? countQuery : new QueryPreparer(parameters.potentiallySortsDynamically());
+		this.groupingProperty = method.isGroupingQuery() ? getGroupingProperty(method) : null;
+		this.countQuery = new CountQueryPreparer();
+		this.keysetQuery = deleteProjection ? new KeysetDeleteQueryPreparer() : null;
+
+		if (deleteProjection) {
+			this.query = new DeleteQueryPreparer();
+		} else if (groupingProperty != null) {
+			this.query = new GroupingQueryPreparer();
+		} else if (tree.isCountProjection()) {
+			this.query = countQuery;
+		} else if (aggregateFunction != null) {
+			this.query = new AggregateQueryPreparer();
+		} else {
+			this.query = new QueryPreparer();
+		}
+
+		Class<?> returnType = ClassUtils.resolvePrimitiveIfNecessary(method.getReturnType());
+
+		if (existsProjection) {
+			Assert.isTrue(Boolean.class.equals(returnType),
+					String.format("Exists query method %s must return boolean!", method));
+		}
+
+		if (deleteProjection) {
+			Assert.isTrue(void.class.equals(method.getReturnType()) || Integer.class.equals(returnType)
+					|| Long.class.equals(returnType), String.format("Delete query method %s must return void, int or long!",
+					method));
+			Assert.isTrue(!LIMITING_SUBJECT.matcher(deleteSubject).find(),
+					String.format("Delete query method %s must not limit its results using First or Top!", method));
+		}
+
+		if (aggregateFunction != null) {
+			Assert.isTrue(method.isScalarQuery(),
+					String.format("Aggregate query method %s must return a number or date!", method));
+		}
+	}
+
+	/**
+	 * Returns the {@link PropertyPath} a derived grouping query method groups by.
+	 * 
+	 * @param method must not be {@literal null}.
+	 * @return
+	 */
+	private PropertyPath getGroupingProperty(JpaQueryMethod method) {
+
+		String property = method.getGroupingProperty();
+
+		Assert.hasText(property, String.format("Grouping query method %s must declare the property to group by!", method));
+		Assert.isTrue(tree.isCountProjection() != method.isGroupingIntoCollections(), String.format(
+				"Grouping query method %s must either count into a Map of numbers or find into a Map of collections!",
+				method));
+
+		return PropertyPath.from(property, entityMetadata.getJavaType());
+	}
+
+	/**
+	 * Returns the part of the given method name following the given prefix if the method name starts with it, e.g.
+	 * {@code ByCode} for {@code existsByCode} and {@code exists}. Spring Data's {@link PartTree} knows neither the
+	 * {@code exists} nor the {@code delete} and {@code remove} prefixes, so such methods are parsed as {@code find}
+	 * methods and executed as exists probe or chunked delete.
+	 * 
+	 * @param methodName must not be {@literal null}.
+	 * @param prefix must not be {@literal null}.
+	 * @return the subject or {@literal null} if the method name does not start with the given prefix.
+	 */
+	private static String getSubject(String methodName, String prefix) {
+
+		if (methodName.startsWith(prefix) && methodName.length() > prefix.length()
+				&& Character.isUpperCase(methodName.charAt(prefix.length()))) {
+			return methodName.substring(prefix.length());
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns whether the given {@link Sort} orders by a nested property, e.g. {@code catalogVersion.catalog.id}.
+	 * 
+	 * @param sort must not be {@literal null}.
+	 * @return
+	 */
+	private static boolean hasNestedProperty(Sort sort) {
+
+		for (Order order : sort) {
+			if (order.getProperty().indexOf('.') >= 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.jpa.repository.query.AbstractJpaQuery#getExecution()
+	 */
+	@Override
+	protected JpaQueryExecution getExecution() {
+		if (existsProjection) {
+			return new ExistsExecution();
+		}
+
+		if (deleteProjection) {
+			return new DeleteExecution(modelService, batchSize);
+		}
+
+		return super.getExecution();
 	}
 
 	/*
@@ -66,7 +240,7 @@ public class PartTreeJpaQuery extends AbstractJpaQuery {
 	 * @see org.springframework.data.jpa.repository.query.AbstractJpaQuery#doCreateQuery(java.lang.Object[])
 	 */
 	@Override
-	public Query doCreateQuery(Object[] values) {
+	public FlexibleSearchQuery doCreateQuery(Object[] values) {
 
 		return query.createQuery(values);
 	}
@@ -76,140 +250,401 @@ public class PartTreeJpaQuery extends AbstractJpaQuery {
 	 * @see org.springframework.data.jpa.repository.query.AbstractJpaQuery#doCreateCountQuery(java.lang.Object[])
 	 */
 	@Override
-	@SuppressWarnings("unchecked")
-	public TypedQuery<Long> doCreateCountQuery(Object[] values) {
+	public FlexibleSearchQuery doCreateCountQuery(Object[] values) {
 
-		return (TypedQuery<Long>) countQuery.createQuery(values);
+		return countQuery.createQuery(values);
 	}
 
 	/**
-	 * Query preparer to create {@link CriteriaQuery} instances and potentially cache them.
+	 * Creates the query selecting the {@link PK}s of the items a delete query method removes in ascending order, starting
+	 * after the given {@link PK}.
+	 * 
+	 * @param values must not be {@literal null}.
+	 * @param lastSeen can be {@literal null} to start with the lowest {@link PK}.
+	 * @return
+	 */
+	FlexibleSearchQuery createDeleteQuery(Object[] values, PK lastSeen) {
+
+		Assert.state(deleteProjection, "Not a delete query method!");
+
+		if (lastSeen == null) {
+			return createQuery(values);
+		}
+
+		FlexibleSearchQuery flexibleSearchQuery = keysetQuery.createQuery(values);
+		flexibleSearchQuery.addQueryParameter(FlexibleSearchDeleteQueryCreator.LAST_SEEN_PARAMETER, lastSeen);
+
+		return flexibleSearchQuery;
+	}
+
+	/**
+	 * Query preparer compiling the {@link PartTree} into a FlexibleSearch query string at construction time. As
+	 * {@literal null} arguments turn into {@literal IS NULL} criteria, each combination of {@literal null} arguments
+	 * needs a variant of its own. Those are compiled lazily, cached by the bitmask of {@literal null} arguments and
+	 * thus compiled at most once.
 	 * 
 	 * @author Oliver Gierke
+	 * @author Kamill Sokol
 	 */
 	private class QueryPreparer {
 
-		private final CriteriaQuery<?> cachedCriteriaQuery;
-		private final List<ParameterMetadata<?>> expressions;
+		private final CompiledQuery compiledQuery;
+		private final ConcurrentMap<Long, CompiledQuery> nullVariants;
 
-		public QueryPreparer(boolean recreateQueries) {
+		public QueryPreparer() {
 
-			JpaQueryCreator creator = createCreator(null);
-			this.cachedCriteriaQuery = recreateQueries ? null : creator.createQuery();
-			this.expressions = recreateQueries ? null : creator.getParameterExpressions();
+			this.compiledQuery = compile(null);
+			this.nullVariants = new ConcurrentHashMap<Long, CompiledQuery>(16, 0.75f, 4);
 		}
 
 		/**
-		 * Creates a new {@link Query} for the given parameter values.
+		 * Creates a new {@link FlexibleSearchQuery} for the given parameter values.
 		 * 
 		 * @param values
 		 * @return
 		 */
-		public Query createQuery(Object[] values) {
+		public FlexibleSearchQuery createQuery(Object[] values) {
 
-			CriteriaQuery<?> criteriaQuery = cachedCriteriaQuery;
-			List<ParameterMetadata<?>> expressions = this.expressions;
 			ParametersParameterAccessor accessor = new ParametersParameterAccessor(parameters, values);
+			CompiledQuery compiled = accessor.hasBindableNullValue() ? getNullVariant(accessor, values) : compiledQuery;
+
+			FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery(applySorting(compiled, accessor.getSort()));
+			return invokeBinding(getBinder(values, compiled.expressions), flexibleSearchQuery);
+		}
 
-			if (cachedCriteriaQuery == null || accessor.hasBindableNullValue()) {
-				JpaQueryCreator creator = createCreator(accessor);
-				criteriaQuery = creator.createQuery(getDynamicSort(values));
-				expressions = creator.getParameterExpressions();
+		/**
+		 * Returns the variant compiled for the {@literal null} arguments among the given values. Once
+		 * {@code MAX_NULL_VARIANTS} variants are cached, further variants are compiled on every call but not stored.
+		 * 
+		 * @param accessor must not be {@literal null}.
+		 * @param values must not be {@literal null}.
+		 * @return
+		 */
+		private CompiledQuery getNullVariant(ParametersParameterAccessor accessor, Object[] values) {
+
+			Long nullMask = getNullMask(values);
+
+			if (nullMask == null) {
+				return compile(getNullPattern(values));
 			}
 
-			TypedQuery<?> jpaQuery = createQuery(criteriaQuery);
-			return invokeBinding(getBinder(values, expressions), jpaQuery);
+			CompiledQuery variant = nullVariants.get(nullMask);
+
+			if (variant != null) {
+				return variant;
+			}
+
+			variant = compile(getNullPattern(values));
+
+			if (nullVariants.size() < MAX_NULL_VARIANTS) {
+				CompiledQuery existing = nullVariants.putIfAbsent(nullMask, variant);
+				return existing == null ? variant : existing;
+			}
+
+			return variant;
 		}
 
 		/**
-		 * Checks whether we are working with a cached {@link CriteriaQuery} and snychronizes the creation of a
-		 * {@link TypedQuery} instance from it. This is due to non-thread-safety in the {@link CriteriaQuery} implementation
-		 * of some persistence providers (i.e. Hibernate in this case).
+		 * Returns the bitmask of the bindable parameters bound to {@literal null}, bit {@code n} representing the
+		 * {@code n}-th bindable parameter.
 		 * 
-		 * @see DATAJPA-396
-		 * @param criteriaQuery must not be {@literal null}.
-		 * @return
+		 * @param values must not be {@literal null}.
+		 * @return the bitmask or {@literal null} if there are too many bindable parameters to be represented.
 		 */
-		private TypedQuery<?> createQuery(CriteriaQuery<?> criteriaQuery) {
+		private Long getNullMask(Object[] values) {
 
-			if (this.cachedCriteriaQuery != null) {
-				synchronized (this.cachedCriteriaQuery) {
-					return getEntityManager().createQuery(criteriaQuery);
+			long mask = 0;
+			int position = 0;
+
+			for (JpaParameter parameter : parameters.getBindableParameters()) {
+
+				if (position == Long.SIZE) {
+					return null;
+				}
+
+				if (values[parameter.getIndex()] == null) {
+					mask |= 1L << position;
 				}
+
+				position++;
 			}
 
-			return getEntityManager().createQuery(criteriaQuery);
+			return mask;
 		}
 
-		protected JpaQueryCreator createCreator(ParametersParameterAccessor accessor) {
+		/**
+		 * Returns a copy of the given values telling the bindable parameters bound to {@literal null} only, so it can be
+		 * kept to compile further variants without holding on to the arguments.
+		 * 
+		 * @param values must not be {@literal null}.
+		 * @return
+		 */
+		private Object[] getNullPattern(Object[] values) {
+
+			Object[] pattern = new Object[values.length];
+
+			for (JpaParameter parameter : parameters.getBindableParameters()) {
+
+				int index = parameter.getIndex();
+				pattern[index] = values[index] == null ? null : ParameterMetadata.PLACEHOLDER;
+			}
+
+			return pattern;
+		}
+
+		/**
+		 * Compiles the {@link PartTree} turning the parameters bound to {@literal null} in the given pattern into
+		 * {@literal IS NULL} criteria. Variants sorted by nested properties of a dynamic {@link Sort}, e.g.
+		 * {@code catalogVersion.catalog.id}, are compiled from the {@link PartTree} as well, as they may need joins of
+		 * their own.
+		 * 
+		 * @param nullPattern can be {@literal null} if no parameter is bound to {@literal null}.
+		 * @return
+		 */
+		private CompiledQuery compile(final Object[] nullPattern) {
+
+			FlexibleSearchQueryCreator creator = createCreator(createProvider(nullPattern));
+			String queryString = creator.createQuery();
+			SortedQueryCache queries = new SortedQueryCache(queryString, creator.isOrdered(),
+					FlexibleSearchQueryCreator.ALIAS, Collections.<String> emptySet(), SortedQueryCache.DEFAULT_CAPACITY) {
+
+				@Override
+				protected String render(Sort sort) {
+
+					if (!hasNestedProperty(sort)) {
+						return super.render(sort);
+					}
+
+					return createCreator(createProvider(nullPattern)).createQuery(sort);
+				}
+			};
+
+			return new CompiledQuery(queries, creator.getParameterExpressions());
+		}
 
-			EntityManager entityManager = getEntityManager();
-			CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		private ParameterMetadataProvider createProvider(Object[] nullPattern) {
+			return nullPattern == null ? new ParameterMetadataProvider(parameters) : new ParameterMetadataProvider(
+					new ParametersParameterAccessor(parameters, nullPattern));
+		}
 
-			ParameterMetadataProvider provider = accessor == null ? new ParameterMetadataProvider(builder, parameters)
-					: new ParameterMetadataProvider(builder, accessor);
+		protected FlexibleSearchQueryCreator createCreator(ParameterMetadataProvider provider) {
+			return new FlexibleSearchQueryCreator(tree, entityMetadata, provider);
+		}
 
-			return new JpaQueryCreator(tree, domainClass, builder, provider);
+		/**
+		 * Returns the query string of the given {@link CompiledQuery} sorted by the dynamic {@link Sort} handed to the
+		 * method. The {@literal ORDER BY} clause is rendered once per distinct {@link Sort}.
+		 * 
+		 * @param compiled must not be {@literal null}.
+		 * @param sort can be {@literal null}.
+		 * @return
+		 */
+		protected String applySorting(CompiledQuery compiled, Sort sort) {
+			return compiled.queries.getQueryString(sort);
 		}
 
 		/**
-		 * Invokes parameter binding on the given {@link TypedQuery}.
+		 * Invokes parameter binding on the given {@link FlexibleSearchQuery}.
 		 * 
 		 * @param binder
 		 * @param query
 		 * @return
 		 */
-		protected Query invokeBinding(ParameterBinder binder, TypedQuery<?> query) {
+		protected FlexibleSearchQuery invokeBinding(ParameterBinder binder, FlexibleSearchQuery query) {
 
 			return binder.bindAndPrepare(query);
 		}
 
-		private ParameterBinder getBinder(Object[] values, List<ParameterMetadata<?>> expressions) {
-			return new CriteriaQueryParameterBinder(parameters, values, expressions);
+		private ParameterBinder getBinder(Object[] values, List<ParameterMetadata> expressions) {
+			return new PartTreeParameterBinder(parameters, values, expressions);
 		}
+	}
+
+	/**
+	 * A {@link PartTree} compiled into a FlexibleSearch query string along with the {@link ParameterMetadata} to bind
+	 * the method arguments to. Instances are shared by all threads invoking the query method without any locking, the
+	 * state of a single invocation lives in the {@link PartTreeParameterBinder} created for it. Apart from the
+	 * concurrent cache of sorted query strings they are immutable.
+	 * 
+	 * @author Kamill Sokol
+	 */
+	private static final class CompiledQuery {
 
-		private Sort getDynamicSort(Object[] values) {
+		private final SortedQueryCache queries;
+		private final List<ParameterMetadata> expressions;
 
-			return parameters.potentiallySortsDynamically() ? new ParametersParameterAccessor(parameters, values).getSort()
-					: null;
+		public CompiledQuery(SortedQueryCache queries, List<ParameterMetadata> expressions) {
+
+			this.queries = queries;
+			this.expressions = Collections.unmodifiableList(new ArrayList<ParameterMetadata>(expressions));
 		}
 	}
 
 	/**
-	 * Special {@link QueryPreparer} to create count queries.
+	 * Special {@link QueryPreparer} to create queries projecting an aggregate of a single attribute.
 	 * 
-	 * @author Oliver Gierke
+	 * @author Kamill Sokol
 	 */
-	private class CountQueryPreparer extends QueryPreparer {
+	private class AggregateQueryPreparer extends QueryPreparer {
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.springframework.data.jpa.repository.query.PartTreeJpaQuery.QueryPreparer#createCreator(org.springframework.data.jpa.repository.query.ParameterMetadataProvider)
+		 */
+		@Override
+		protected FlexibleSearchQueryCreator createCreator(ParameterMetadataProvider provider) {
+			return new FlexibleSearchAggregateQueryCreator(tree, entityMetadata, provider, aggregateFunction,
+					aggregateProperty);
+		}
+
+		/**
+		 * Aggregate queries ignore any dynamic {@link Sort}.
+		 * 
+		 * @see org.springframework.data.jpa.repository.query.PartTreeJpaQuery.QueryPreparer#applySorting(org.springframework.data.jpa.repository.query.PartTreeJpaQuery.CompiledQuery,
+		 *      org.springframework.data.domain.Sort)
+		 */
+		@Override
+		protected String applySorting(CompiledQuery compiled, Sort sort) {
+			return compiled.queries.getQueryString();
+		}
+
+		/**
+		 * Customizes binding by skipping the pagination.
+		 * 
+		 * @see org.springframework.data.jpa.repository.query.PartTreeJpaQuery.QueryPreparer#invokeBinding(org.springframework.data.jpa.repository.query.ParameterBinder,
+		 *      de.hybris.platform.servicelayer.search.FlexibleSearchQuery)
+		 */
+		@Override
+		protected FlexibleSearchQuery invokeBinding(ParameterBinder binder, FlexibleSearchQuery query) {
+			return binder.bind(query);
+		}
+	}
+
+	/**
+	 * Special {@link QueryPreparer} to create queries selecting the attribute to group by along with the items or their
+	 * number per group.
+	 * 
+	 * @author Kamill Sokol
+	 */
+	private class GroupingQueryPreparer extends QueryPreparer {
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.springframework.data.jpa.repository.query.PartTreeJpaQuery.QueryPreparer#createCreator(org.springframework.data.jpa.repository.query.ParameterMetadataProvider)
+		 */
+		@Override
+		protected FlexibleSearchQueryCreator createCreator(ParameterMetadataProvider provider) {
+			return new FlexibleSearchGroupingQueryCreator(tree, entityMetadata, provider, groupingProperty,
+					tree.isCountProjection());
+		}
+
+		/**
+		 * Counting grouping queries ignore any dynamic {@link Sort}.
+		 * 
+		 * @see org.springframework.data.jpa.repository.query.PartTreeJpaQuery.QueryPreparer#applySorting(org.springframework.data.jpa.repository.query.PartTreeJpaQuery.CompiledQuery,
+		 *      org.springframework.data.domain.Sort)
+		 */
+		@Override
+		protected String applySorting(CompiledQuery compiled, Sort sort) {
+			return tree.isCountProjection() ? compiled.queries.getQueryString() : super.applySorting(compiled, sort);
+		}
 
-		public CountQueryPreparer(boolean recreateQueries) {
-			super(recreateQueries);
+		/**
+		 * Customizes binding by skipping the pagination.
+		 * 
+		 * @see org.springframework.data.jpa.repository.query.PartTreeJpaQuery.QueryPreparer#invokeBinding(org.springframework.data.jpa.repository.query.ParameterBinder,
+		 *      de.hybris.platform.servicelayer.search.FlexibleSearchQuery)
+		 */
+		@Override
+		protected FlexibleSearchQuery invokeBinding(ParameterBinder binder, FlexibleSearchQuery query) {
+			return binder.bind(query);
 		}
+	}
+
+	/**
+	 * Special {@link QueryPreparer} to create queries selecting the {@link PK}s of the items to delete in ascending order.
+	 * 
+	 * @author Kamill Sokol
+	 */
+	private class DeleteQueryPreparer extends QueryPreparer {
 
 		/*
 		 * (non-Javadoc)
-		 * @see org.springframework.data.jpa.repository.query.PartTreeJpaQuery.QueryPreparer#createCreator(org.springframework.data.repository.query.ParametersParameterAccessor)
+		 * @see org.springframework.data.jpa.repository.query.PartTreeJpaQuery.QueryPreparer#createCreator(org.springframework.data.jpa.repository.query.ParameterMetadataProvider)
 		 */
 		@Override
-		protected JpaQueryCreator createCreator(ParametersParameterAccessor accessor) {
+		protected FlexibleSearchQueryCreator createCreator(ParameterMetadataProvider provider) {
+			return new FlexibleSearchDeleteQueryCreator(tree, entityMetadata, provider, false);
+		}
 
-			EntityManager entityManager = getEntityManager();
-			CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		/**
+		 * Delete queries ignore any dynamic {@link Sort}.
+		 * 
+		 * @see org.springframework.data.jpa.repository.query.PartTreeJpaQuery.QueryPreparer#applySorting(org.springframework.data.jpa.repository.query.PartTreeJpaQuery.CompiledQuery,
+		 *      org.springframework.data.domain.Sort)
+		 */
+		@Override
+		protected String applySorting(CompiledQuery compiled, Sort sort) {
+			return compiled.queries.getQueryString();
+		}
+	}
 
-			ParameterMetadataProvider provider = accessor == null ? new ParameterMetadataProvider(builder, parameters)
-					: new ParameterMetadataProvider(builder, accessor);
+	/**
+	 * Special {@link DeleteQueryPreparer} to create queries selecting the {@link PK}s of the items to delete after the one
+	 * bound to {@value FlexibleSearchDeleteQueryCreator#LAST_SEEN_PARAMETER}.
+	 * 
+	 * @author Kamill Sokol
+	 */
+	private class KeysetDeleteQueryPreparer extends DeleteQueryPreparer {
 
-			return new JpaCountQueryCreator(tree, domainClass, builder, provider);
+		/*
+		 * (non-Javadoc)
+		 * @see org.springframework.data.jpa.repository.query.PartTreeJpaQuery.DeleteQueryPreparer#createCreator(org.springframework.data.jpa.repository.query.ParameterMetadataProvider)
+		 */
+		@Override
+		protected FlexibleSearchQueryCreator createCreator(ParameterMetadataProvider provider) {
+			return new FlexibleSearchDeleteQueryCreator(tree, entityMetadata, provider, true);
+		}
+	}
+
+	/**
+	 * Special {@link QueryPreparer} to create count queries.
+	 * 
+	 * @author Oliver Gierke
+	 * @author Kamill Sokol
+	 */
+	private class CountQueryPreparer extends QueryPreparer {
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.springframework.data.jpa.repository.query.PartTreeJpaQuery.QueryPreparer#createCreator(org.springframework.data.jpa.repository.query.ParameterMetadataProvider)
+		 */
+		@Override
+		protected FlexibleSearchQueryCreator createCreator(ParameterMetadataProvider provider) {
+			return new FlexibleSearchCountQueryCreator(tree, entityMetadata, provider);
+		}
+
+		/**
+		 * Count queries ignore any dynamic {@link Sort}.
+		 * 
+		 * @see org.springframework.data.jpa.repository.query.PartTreeJpaQuery.QueryPreparer#applySorting(org.springframework.data.jpa.repository.query.PartTreeJpaQuery.CompiledQuery,
+		 *      org.springframework.data.domain.Sort)
+		 */
+		@Override
+		protected String applySorting(CompiledQuery compiled, Sort sort) {
+			return compiled.queries.getQueryString();
 		}
 
 		/**
 		 * Customizes binding by skipping the pagination.
 		 * 
 		 * @see org.springframework.data.jpa.repository.query.PartTreeJpaQuery.QueryPreparer#invokeBinding(org.springframework.data.jpa.repository.query.ParameterBinder,
-		 *      javax.persistence.TypedQuery)
+		 *      de.hybris.platform.servicelayer.search.FlexibleSearchQuery)
 		 */
 		@Override
-		protected Query invokeBinding(ParameterBinder binder, javax.persistence.TypedQuery<?> query) {
+		protected FlexibleSearchQuery invokeBinding(ParameterBinder binder, FlexibleSearchQuery query) {
+
+			query.setResultClassList(Arrays.asList(Long.class));
 			return binder.bind(query);
 		}
 	}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.jpa.repository.query;
+
+import java.util.Iterator;
+import java.util.List;
+
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import org.springframework.data.jpa.repository.query.JpaParameters.JpaParameter;
+import org.springframework.data.jpa.repository.query.ParameterMetadataProvider.ParameterMetadata;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ParameterBinder} binding the method arguments to the parameter names generated by a
+ * {@link FlexibleSearchQueryCreator}.
+ * 
+ * @author Kamill Sokol
+ */
+class PartTreeParameterBinder extends ParameterBinder {
+
+	private final List<ParameterMetadata> expressions;
+
+	/**
+	 * Creates a new {@link PartTreeParameterBinder} for the given {@link JpaParameters}, values and
+	 * {@link ParameterMetadata}.
+	 * 
+	 * @param parameters must not be {@literal null}.
+	 * @param values must not be {@literal null}.
+	 * @param expressions must not be {@literal null}.
+	 */
+	public PartTreeParameterBinder(JpaParameters parameters, Object[] values, List<ParameterMetadata> expressions) {
+
+		super(parameters, values);
+
+		Assert.notNull(expressions);
+		this.expressions = expressions;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.jpa.repository.query.ParameterBinder#bind(de.hybris.platform.servicelayer.search.FlexibleSearchQuery)
+	 */
+	@Override
+	public FlexibleSearchQuery bind(FlexibleSearchQuery query) {
+
+		Iterator<ParameterMetadata> iterator = expressions.iterator();
+
+		for (JpaParameter parameter : getParameters().getBindableParameters()) {
+
+			if (!iterator.hasNext()) {
+				break;
+			}
+
+			ParameterMetadata metadata = iterator.next();
+
+			if (!metadata.isIsNullParameter()) {
+				query.addQueryParameter(metadata.getName(), metadata.prepare(getValues()[parameter.getIndex()]));
+			}
+		}
+
+		return query;
+	}
+}
@@ -15,75 +15,38 @@
  */
 package org.springframework.data.jpa.repository.query;
 
-import javax.persistence.EntityManager;
-import javax.persistence.Query;
-
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
 import org.springframework.data.repository.query.RepositoryQuery;
 
 /**
  * {@link RepositoryQuery} implementation that inspects a {@link org.springframework.data.repository.query.QueryMethod}
- * for the existence of an {@link org.springframework.data.jpa.repository.Query} annotation and creates a JPA
- * {@link Query} from it.
+ * for the existence of an {@link org.springframework.data.hybris.repository.Query} annotation and creates a
+ * FlexibleSearch query from it.
  * 
  * @author Oliver Gierke
  * @author Thomas Darimont
+ * @author Kamill Sokol
  */
-final class SimpleJpaQuery extends AbstractStringBasedJpaQuery {
+public final class SimpleJpaQuery extends AbstractStringBasedJpaQuery {
 
 	/**
 	 * Creates a new {@link SimpleJpaQuery} encapsulating the query annotated on the given {@link JpaQueryMethod}.
 	 * 
 	 * @param method must not be {@literal null}.
-	 * @param em must not be {@literal null}.
+	 * @param flexibleSearchService must not be {@literal null}.
 	 */
-	public SimpleJpaQuery(JpaQueryMethod method, EntityManager em) {
-		this(method, em, method.getAnnotatedQuery());
+	public SimpleJpaQuery(JpaQueryMethod method, FlexibleSearchService flexibleSearchService) {
+		this(method, flexibleSearchService, method.getAnnotatedQuery());
 	}
 
 	/**
 	 * Creates a new {@link SimpleJpaQuery} that encapsulates a simple query string.
 	 * 
 	 * @param method must not be {@literal null}.
-	 * @param em must not be {@literal null}.
+	 * @param flexibleSearchService must not be {@literal null}.
 	 * @param queryString must not be {@literal null} or empty.
 	 */
-	public SimpleJpaQuery(JpaQueryMethod method, EntityManager em, String queryString) {
-
-		super(method, em, queryString);
-
-		validateQuery(getQuery().getQueryString(), String.format("Validation failed for query for method %s!", method));
-
-		if (method.isPageQuery()) {
-			validateQuery(getCountQuery().getQueryString(),
-					String.format("Count query validation failed for method %s!", method));
-		}
-	}
-
-	/**
-	 * Validates the given query for syntactical correctness.
-	 * 
-	 * @param query
-	 * @param em
-	 */
-	private final void validateQuery(String query, String errorMessage) {
-
-		EntityManager validatingEm = null;
-
-		try {
-			validatingEm = getEntityManager().getEntityManagerFactory().createEntityManager();
-			validatingEm.createQuery(query);
-
-		} catch (RuntimeException e) {
-
-			// Needed as there's ambiguities in how an invalid query string shall be expressed by the persistence provider
-			// http://java.net/projects/jpa-spec/lists/jsr338-experts/archive/2012-07/message/17
-			throw new IllegalArgumentException(errorMessage, e);
-
-		} finally {
-
-			if (validatingEm != null) {
-				validatingEm.close();
-			}
-		}
+	public SimpleJpaQuery(JpaQueryMethod method, FlexibleSearchService flexibleSearchService, String queryString) {
+		super(method, flexibleSearchService, queryString);
 	}
 }
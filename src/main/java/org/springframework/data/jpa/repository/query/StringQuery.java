@@ -15,39 +15,44 @@
  */
 package org.springframework.data.jpa.repository.query;
 
-import static java.util.regex.Pattern.*;
 import static org.springframework.util.ObjectUtils.*;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
+import org.springframework.data.hybris.repository.query.ParsedFlexibleSearchQuery;
+import org.springframework.data.hybris.repository.query.ParsedFlexibleSearchQuery.Parameter;
 import org.springframework.data.repository.query.parser.Part.Type;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
 /**
- * Encapsulation of a String JPA query.
+ * Encapsulation of a String FlexibleSearch query. Instances are immutable and thus shared between threads without
+ * locking.
  * 
  * @author Oliver Gierke
  * @author Thomas Darimont
  * @author Oliver Wehrens
+ * @author Kamill Sokol
  */
 class StringQuery {
 
 	private static final String PARAMETER_NAME_MISSING = "Name for parameter binding must not be null or empty! For named parameters you need to use @Param for query method parameters on Java versions < 8.";
 
+	private final ParsedFlexibleSearchQuery parsedQuery;
 	private final String query;
 	private final List<ParameterBinding> bindings;
 	private final String alias;
+	private final Set<String> joinAliases;
 
 	/**
-	 * Creates a new {@link StringQuery} from the given JPQL query.
+	 * Creates a new {@link StringQuery} from the given FlexibleSearch query.
 	 * 
 	 * @param query must not be {@literal null} or empty.
 	 */
@@ -55,10 +60,14 @@ class StringQuery {
 
 		Assert.hasText(query, "Query must not be null or empty!");
 
-		this.bindings = new ArrayList<StringQuery.ParameterBinding>();
-		this.query = ParameterBindingParser.INSTANCE.parseParameterBindingsOfQueryIntoBindingsAndReturnCleanedQuery(query,
-				this.bindings);
-		this.alias = QueryUtils.detectAlias(query);
+		List<ParameterBinding> bindings = new ArrayList<StringQuery.ParameterBinding>();
+
+		this.parsedQuery = ParsedFlexibleSearchQuery.parse(query);
+		this.query = ParameterBindingParser.INSTANCE.parseParameterBindingsOfQueryIntoBindingsAndReturnCleanedQuery(
+				parsedQuery, bindings);
+		this.bindings = Collections.unmodifiableList(bindings);
+		this.alias = parsedQuery.getAlias();
+		this.joinAliases = parsedQuery.getJoinAliases();
 	}
 
 	/**
@@ -88,6 +97,15 @@ class StringQuery {
 		return query;
 	}
 
+	/**
+	 * Returns the structure of the declared query, i.e. including the wildcards of {@literal LIKE} parameters.
+	 * 
+	 * @return
+	 */
+	public ParsedFlexibleSearchQuery getParsedQuery() {
+		return parsedQuery;
+	}
+
 	/**
 	 * Returns the main alias used in the query.
 	 * 
@@ -97,6 +115,15 @@ class StringQuery {
 		return alias;
 	}
 
+	/**
+	 * Returns the aliases of the types joined in the query.
+	 * 
+	 * @return the join aliases, never {@literal null}.
+	 */
+	public Set<String> getJoinAliases() {
+		return joinAliases;
+	}
+
 	/**
 	 * Returns the {@link ParameterBinding} for the given name.
 	 * 
@@ -142,71 +169,45 @@ class StringQuery {
 
 		INSTANCE;
 
-		private static final Pattern PARAMETER_BINDING_PATTERN;
 		private static final String MESSAGE = "Already found parameter binding with same index / parameter name but differing binding type! "
 				+ "Already have: %s, found %s! If you bind a parameter multiple times make sure they use the same binding.";
 
-		static {
-
-			List<String> keywords = new ArrayList<String>();
-
-			for (ParameterBindingType type : ParameterBindingType.values()) {
-				if (type.getKeyword() != null) {
-					keywords.add(type.getKeyword());
-				}
-			}
-
-			StringBuilder builder = new StringBuilder();
-			builder.append("(");
-			builder.append(StringUtils.collectionToDelimitedString(keywords, "|")); // keywords
-			builder.append(")?");
-			builder.append("(?: )?"); // some whitespace
-			builder.append("\\(?"); // optional braces around paramters
-			builder.append("(");
-			builder.append("%?(\\?(\\d+))%?"); // position parameter
-			builder.append("|"); // or
-			builder.append("%?(:(\\w+))%?"); // named parameter;
-			builder.append(")");
-			builder.append("\\)?"); // optional braces around paramters
-
-			PARAMETER_BINDING_PATTERN = Pattern.compile(builder.toString(), CASE_INSENSITIVE);
-		}
-
 		/**
-		 * Parses {@link ParameterBinding} instances from the given query and adds them to the registered bindings. Returns
-		 * the cleaned up query.
+		 * Registers {@link ParameterBinding} instances for the parameters of the given parsed query and adds them to the
+		 * registered bindings. Returns the query with the wildcards of {@literal LIKE} parameters removed.
 		 * 
 		 * @param query
 		 * @return
 		 */
-		private final String parseParameterBindingsOfQueryIntoBindingsAndReturnCleanedQuery(String query,
-				List<ParameterBinding> bindings) {
+		private final String parseParameterBindingsOfQueryIntoBindingsAndReturnCleanedQuery(
+				ParsedFlexibleSearchQuery query, List<ParameterBinding> bindings) {
 
-			Matcher matcher = PARAMETER_BINDING_PATTERN.matcher(query);
-			String result = query;
+			String source = query.getQuery();
+			StringBuilder result = new StringBuilder(source.length());
+			int copied = 0;
 
-			while (matcher.find()) {
+			for (Parameter parameter : query.getParameters()) {
 
-				String parameterIndexString = matcher.group(4);
-				String parameterName = parameterIndexString != null ? null : matcher.group(6);
-				Integer parameterIndex = parameterIndexString == null ? null : Integer.valueOf(parameterIndexString);
-				String typeSource = matcher.group(1);
+				Integer parameterIndex = parameter.isPositional() ? Integer.valueOf(parameter.getName()) : null;
+				String parameterName = parameterIndex != null ? null : parameter.getName();
 
-				switch (ParameterBindingType.of(typeSource)) {
+				switch (ParameterBindingType.of(parameter.getKeyword())) {
 
 					case LIKE:
 
-						Type likeType = LikeParameterBinding.getLikeTypeFrom(matcher.group(2));
-						String replacement = matcher.group(3);
+						Type likeType = LikeParameterBinding.getLikeTypeFrom(getLikeExpression(parameter));
 
 						if (parameterIndex != null) {
 							checkAndRegister(new LikeParameterBinding(parameterIndex, likeType), bindings);
 						} else {
 							checkAndRegister(new LikeParameterBinding(parameterName, likeType), bindings);
-							replacement = matcher.group(5);
 						}
 
-						result = StringUtils.replace(result, matcher.group(2), replacement);
+						// drop the wildcards, they are applied to the bound value
+						result.append(source, copied, parameter.hasLeadingWildcard() ? parameter.getStart() - 1
+								: parameter.getStart());
+						result.append(source, parameter.getStart(), parameter.getEnd());
+						copied = parameter.hasTrailingWildcard() ? parameter.getEnd() + 1 : parameter.getEnd();
 						break;
 
 					case IN:
@@ -217,7 +218,6 @@ class StringQuery {
 							checkAndRegister(new InParameterBinding(parameterName), bindings);
 						}
 
-						result = query;
 						break;
 
 					case AS_IS: // fall-through we don't need a special parameter binding for the given parameter.
@@ -228,7 +228,21 @@ class StringQuery {
 				}
 			}
 
-			return result;
+			return copied == 0 ? source : result.append(source, copied, source.length()).toString();
+		}
+
+		/**
+		 * Returns the like expression of the given parameter including its wildcards, e.g. {@code %?name%}.
+		 * 
+		 * @param parameter must not be {@literal null}.
+		 * @return
+		 */
+		private static String getLikeExpression(Parameter parameter) {
+
+			StringBuilder builder = new StringBuilder();
+			builder.append(parameter.hasLeadingWildcard() ? "%?" : "?").append(parameter.getName());
+
+			return parameter.hasTrailingWildcard() ? builder.append('%').toString() : builder.toString();
 		}
 
 		private static void checkAndRegister(ParameterBinding binding, List<ParameterBinding> bindings) {
@@ -252,25 +266,7 @@ class StringQuery {
 		 */
 		private static enum ParameterBindingType {
 
-			// Trailing whitespace is intentional to reflect that the keywords must be used with at least one whitespace
-			// character, while = does not.
-			LIKE("like "), IN("in "), AS_IS(null);
-
-			private final String keyword;
-
-			private ParameterBindingType(String keyword) {
-				this.keyword = keyword;
-			}
-
-			/**
-			 * Returns the keyword that will tirgger the binding type or {@literal null} if the type is not triggered by a
-			 * keyword.
-			 * 
-			 * @return the keyword
-			 */
-			public String getKeyword() {
-				return keyword;
-			}
+			LIKE, IN, AS_IS;
 
 			/**
 			 * Return the appropriate {@link ParameterBindingType} for the given {@link String}. Returns {@keyword
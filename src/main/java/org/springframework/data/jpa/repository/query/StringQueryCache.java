@@ -0,0 +1,211 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.jpa.repository.query;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.data.hybris.repository.core.HybrisEntityMetadata;
+import org.springframework.data.hybris.repository.query.FlexibleSearchQueryUtils;
+import org.springframework.data.hybris.repository.query.ParsedFlexibleSearchQuery;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Process-wide cache of parsed {@link StringQuery}s keyed by query text, so repositories declaring identical queries
+ * share a single parse. As {@link StringQuery}s are immutable, the cache holds them weakly only: a parse stays cached as
+ * long as any repository query still uses it.
+ * 
+ * @author Kamill Sokol
+ */
+enum StringQueryCache {
+
+	INSTANCE;
+
+	private final ConcurrentMap<CacheKey, QueryReference> queries = new ConcurrentHashMap<CacheKey, QueryReference>(
+			64, 0.75f, 4);
+	private final ReferenceQueue<StringQuery> collectedQueries = new ReferenceQueue<StringQuery>();
+
+	/**
+	 * Returns the parsed query for the given query string, evaluating the SpEL template expressions it contains against
+	 * the given {@link HybrisEntityMetadata}.
+	 * 
+	 * @param query must not be {@literal null} or empty.
+	 * @param metadata must not be {@literal null}.
+	 * @return
+	 * @see ExpressionBasedStringQuery
+	 */
+	public StringQuery getQuery(String query, HybrisEntityMetadata<?> metadata) {
+
+		Assert.hasText(query, "Query string must not be null or empty!");
+		Assert.notNull(metadata, "Metadata must not be null!");
+
+		String typecode = ExpressionBasedStringQuery.containsExpression(query) ? metadata.getTypecode() : null;
+		CacheKey key = new CacheKey(query, typecode, false);
+		StringQuery cached = lookup(key);
+
+		return cached != null ? cached : store(key, new ExpressionBasedStringQuery(query, metadata));
+	}
+
+	/**
+	 * Returns the parsed count query for the given query. Unless a count query is declared explicitly, it is derived
+	 * from the given query.
+	 * 
+	 * @param query must not be {@literal null}.
+	 * @param countQuery the declared count query, can be {@literal null}.
+	 * @return
+	 */
+	public StringQuery getCountQuery(StringQuery query, String countQuery) {
+
+		Assert.notNull(query, "Query must not be null!");
+
+		ParsedFlexibleSearchQuery parsedQuery = query.getParsedQuery();
+		CacheKey key = countQuery != null ? new CacheKey(countQuery, null, false) : new CacheKey(parsedQuery.getQuery(),
+				null, true);
+		StringQuery cached = lookup(key);
+
+		if (cached != null) {
+			return cached;
+		}
+
+		// derived from the declared query to keep the wildcards of LIKE parameters
+		String queryString = countQuery != null ? countQuery : FlexibleSearchQueryUtils.createCountQueryFor(parsedQuery);
+		return store(key, new StringQuery(queryString));
+	}
+
+	private StringQuery lookup(CacheKey key) {
+
+		purgeCollectedQueries();
+
+		QueryReference reference = queries.get(key);
+		return reference == null ? null : reference.get();
+	}
+
+	/**
+	 * Caches the given query unless another thread cached a query for the same key before.
+	 * 
+	 * @param key must not be {@literal null}.
+	 * @param query must not be {@literal null}.
+	 * @return the cached query.
+	 */
+	private StringQuery store(CacheKey key, StringQuery query) {
+
+		QueryReference reference = new QueryReference(key, query, collectedQueries);
+
+		while (true) {
+
+			QueryReference existing = queries.putIfAbsent(key, reference);
+
+			if (existing == null) {
+				return query;
+			}
+
+			StringQuery cached = existing.get();
+
+			if (cached != null) {
+				return cached;
+			}
+
+			if (queries.replace(key, existing, reference)) {
+				return query;
+			}
+		}
+	}
+
+	private void purgeCollectedQueries() {
+
+		QueryReference reference;
+
+		while ((reference = (QueryReference) collectedQueries.poll()) != null) {
+			queries.remove(reference.key, reference);
+		}
+	}
+
+	/**
+	 * Weak reference to a cached {@link StringQuery} remembering its key to be purged once the query was collected.
+	 * 
+	 * @author Kamill Sokol
+	 */
+	private static class QueryReference extends WeakReference<StringQuery> {
+
+		private final CacheKey key;
+
+		public QueryReference(CacheKey key, StringQuery query, ReferenceQueue<StringQuery> queue) {
+
+			super(query, queue);
+			this.key = key;
+		}
+	}
+
+	/**
+	 * Key of a cached query: the query text, the typecode its template expressions were evaluated against and whether
+	 * the count query derived from it is cached.
+	 * 
+	 * @author Kamill Sokol
+	 */
+	private static class CacheKey {
+
+		private final String query;
+		private final String typecode;
+		private final boolean derivedCount;
+
+		public CacheKey(String query, String typecode, boolean derivedCount) {
+
+			this.query = query;
+			this.typecode = typecode;
+			this.derivedCount = derivedCount;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+
+			if (this == obj) {
+				return true;
+			}
+
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+
+			CacheKey that = (CacheKey) obj;
+
+			return query.equals(that.query) && ObjectUtils.nullSafeEquals(typecode, that.typecode)
+					&& derivedCount == that.derivedCount;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+
+			int result = 17;
+
+			result = 31 * result + query.hashCode();
+			result = 31 * result + ObjectUtils.nullSafeHashCode(typecode);
+			result = 31 * result + (derivedCount ? 1 : 0);
+
+			return result;
+		}
+	}
+}
@@ -15,8 +15,7 @@
  */
 package org.springframework.data.jpa.repository.query;
 
-import javax.persistence.Query;
-
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
 import org.springframework.data.jpa.repository.query.JpaParameters.JpaParameter;
 import org.springframework.data.jpa.repository.query.StringQuery.LikeParameterBinding;
 import org.springframework.data.jpa.repository.query.StringQuery.ParameterBinding;
@@ -33,6 +32,7 @@ import org.springframework.util.Assert;
 public class StringQueryParameterBinder extends ParameterBinder {
 
 	private final StringQuery query;
+	private final boolean declaredOnly;
 
 	/**
 	 * Creates a new {@link StringQueryParameterBinder} from the given {@link Parameters}, method arguments and
@@ -43,50 +43,61 @@ public class StringQueryParameterBinder extends ParameterBinder {
 	 * @param query must not be {@literal null}.
 	 */
 	public StringQueryParameterBinder(JpaParameters parameters, Object[] values, StringQuery query) {
+		this(parameters, values, query, false);
+	}
+
+	/**
+	 * Creates a new {@link StringQueryParameterBinder} from the given {@link Parameters}, method arguments and
+	 * {@link StringQuery}. If {@code declaredOnly} is {@literal true} method parameters the query does not declare are
+	 * not bound, e.g. for a count query using only some of the parameters of the query method.
+	 * 
+	 * @param parameters must not be {@literal null}.
+	 * @param values must not be {@literal null}.
+	 * @param query must not be {@literal null}.
+	 * @param declaredOnly whether to bind the parameters declared by the query only.
+	 */
+	public StringQueryParameterBinder(JpaParameters parameters, Object[] values, StringQuery query,
+			boolean declaredOnly) {
 
 		super(parameters, values);
 
 		Assert.notNull(query, "StringQuery must not be null!");
 		this.query = query;
+		this.declaredOnly = declaredOnly;
 	}
 
 	/* 
 	 * (non-Javadoc)
-	 * @see org.springframework.data.jpa.repository.query.ParameterBinder#bind(javax.persistence.Query, org.springframework.data.repository.query.Parameter, java.lang.Object, int)
+	 * @see org.springframework.data.jpa.repository.query.ParameterBinder#bind(de.hybris.platform.servicelayer.search.FlexibleSearchQuery, org.springframework.data.jpa.repository.query.JpaParameters.JpaParameter, java.lang.Object, int)
 	 */
 	@Override
-	protected void bind(Query jpaQuery, JpaParameter methodParameter, Object value, int position) {
+	protected void bind(FlexibleSearchQuery flexibleSearchQuery, JpaParameter methodParameter, Object value,
+			int position) {
+
+		ParameterBinding binding = getBindingFor(position, methodParameter);
 
-		ParameterBinding binding = getBindingFor(jpaQuery, position, methodParameter);
-		super.bind(jpaQuery, methodParameter, binding.prepare(value), position);
+		if (binding == null) {
+			return;
+		}
+
+		super.bind(flexibleSearchQuery, methodParameter, binding.prepare(value), position);
 	}
 
 	/**
 	 * Finds the {@link LikeParameterBinding} to be applied before binding a parameter value to the query.
 	 * 
-	 * @param jpaQuery must not be {@literal null}.
 	 * @param position
 	 * @param methodParameter must not be {@literal null}.
-	 * @return the {@link ParameterBinding} for the given parameters or {@literal null} if none available.
+	 * @return the {@link ParameterBinding} for the given parameters. If the query declares none a plain one or
+	 *         {@literal null} if only declared parameters are bound.
 	 */
-	private ParameterBinding getBindingFor(Query jpaQuery, int position, Parameter methodParameter) {
+	private ParameterBinding getBindingFor(int position, Parameter methodParameter) {
 
 		try {
-
-			jpaQuery.getParameter(position);
-			return query.getBindingFor(position);
-
+			return methodParameter.isNamedParameter() ? query.getBindingFor(methodParameter.getName()) : query
+					.getBindingFor(position);
 		} catch (IllegalArgumentException o_O) {
-
-			if (hasNamedParameter(jpaQuery)) {
-				return query.getBindingFor(methodParameter.getName());
-			}
+			return declaredOnly ? null : new ParameterBinding(position);
 		}
-
-		// We should actually reject parameters unavailable, but as EclipseLink doesn't implement ….getParameter(int) for
-		// native queries correctly we need to fall back to an indexed parameter
-		// @see https://bugs.eclipse.org/bugs/show_bug.cgi?id=427892
-
-		return new ParameterBinding(position);
 	}
 }
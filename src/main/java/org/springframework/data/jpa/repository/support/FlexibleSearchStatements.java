@@ -0,0 +1,124 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.jpa.repository.support;
+
+import org.springframework.util.Assert;
+
+/**
+ * The FlexibleSearch statements used by the CRUD methods of a {@link SimpleJpaRepository}. Statements are built once
+ * per type and interned, so every invocation hands the very same query string to the
+ * {@link de.hybris.platform.servicelayer.search.FlexibleSearchService} which keeps the keys of the platform's query
+ * cache stable.
+ * 
+ * @author Kamill Sokol
+ */
+final class FlexibleSearchStatements {
+
+	static final String PK_PARAMETER = "pk";
+	static final String PKS_PARAMETER = "pks";
+	static final String LAST_SEEN_PARAMETER = "lastSeen";
+	static final String UPPER_BOUND_PARAMETER = "upperBound";
+
+	private final String selectAll;
+	private final String selectByPk;
+	private final String selectByPks;
+	private final String selectOrderedByPk;
+	private final String selectAfterPk;
+	private final String selectOrderedByPkDescending;
+	private final String selectAfterPkUpTo;
+	private final String count;
+
+	/**
+	 * Creates the statements for the given typecode.
+	 * 
+	 * @param typecode must not be {@literal null} or empty.
+	 */
+	FlexibleSearchStatements(String typecode) {
+
+		Assert.hasText(typecode, "Typecode must not be null or empty!");
+
+		String from = "select {PK} from {" + typecode + "}";
+
+		this.selectAll = from.intern();
+		this.selectByPk = (from + " where {PK} = ?" + PK_PARAMETER).intern();
+		this.selectByPks = (from + " where {PK} in (?" + PKS_PARAMETER + ")").intern();
+		this.selectOrderedByPk = (from + " order by {PK}").intern();
+		this.selectAfterPk = (from + " where {PK} > ?" + LAST_SEEN_PARAMETER + " order by {PK}").intern();
+		this.selectOrderedByPkDescending = (from + " order by {PK} desc").intern();
+		this.selectAfterPkUpTo = (from + " where {PK} > ?" + LAST_SEEN_PARAMETER + " and {PK} <= ?" + UPPER_BOUND_PARAMETER
+				+ " order by {PK}").intern();
+		this.count = ("select count({PK}) from {" + typecode + "}").intern();
+	}
+
+	/**
+	 * Selects all items of the type.
+	 */
+	String selectAll() {
+		return selectAll;
+	}
+
+	/**
+	 * Selects the item with the {@link de.hybris.platform.core.PK} bound to {@value #PK_PARAMETER}.
+	 */
+	String selectByPk() {
+		return selectByPk;
+	}
+
+	/**
+	 * Selects the items with the {@link de.hybris.platform.core.PK}s bound to {@value #PKS_PARAMETER}.
+	 */
+	String selectByPks() {
+		return selectByPks;
+	}
+
+	/**
+	 * Selects all items of the type in ascending {@link de.hybris.platform.core.PK} order.
+	 */
+	String selectOrderedByPk() {
+		return selectOrderedByPk;
+	}
+
+	/**
+	 * Selects the items with a {@link de.hybris.platform.core.PK} greater than the one bound to
+	 * {@value #LAST_SEEN_PARAMETER} in ascending {@link de.hybris.platform.core.PK} order.
+	 */
+	String selectAfterPk() {
+		return selectAfterPk;
+	}
+
+	/**
+	 * Selects all items of the type in descending {@link de.hybris.platform.core.PK} order.
+	 */
+	String selectOrderedByPkDescending() {
+		return selectOrderedByPkDescending;
+	}
+
+	/**
+	 * Selects the items with a {@link de.hybris.platform.core.PK} greater than the one bound to
+	 * {@value #LAST_SEEN_PARAMETER} and not greater than the one bound to {@value #UPPER_BOUND_PARAMETER} in ascending
+	 * {@link de.hybris.platform.core.PK} order.
+	 */
+	String selectAfterPkUpTo() {
+		return selectAfterPkUpTo;
+	}
+
+	/**
+	 * Counts all items of the type.
+	 */
+	String count() {
+		return count;
+	}
+}
@@ -16,16 +16,28 @@
 package org.springframework.data.jpa.repository.support;
 
 import static org.springframework.data.jpa.repository.query.QueryUtils.*;
+import static org.springframework.data.jpa.repository.utils.ParallelExecutionUtils.*;
 
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 import javax.persistence.EntityManager;
 
+import de.hybris.platform.core.PK;
 import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.servicelayer.exceptions.ModelLoadingException;
+import de.hybris.platform.servicelayer.exceptions.UnknownIdentifierException;
 import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
 import de.hybris.platform.servicelayer.search.FlexibleSearchService;
@@ -35,8 +47,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.hybris.domain.KeysetPage;
 import org.springframework.data.hybris.repository.core.HybrisEntityMetadata;
+import org.springframework.data.hybris.repository.query.SortedQueryCache;
 import org.springframework.data.hybris.repository.HybrisRepository;
+import org.springframework.data.hybris.repository.ModelCallback;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
@@ -55,9 +70,16 @@ import org.springframework.util.Assert;
 @Transactional(readOnly = true)
 public class SimpleJpaRepository<T extends ItemModel, ID extends Serializable> implements HybrisRepository<T, ID> { //, JpaSpecificationExecutor<T> {
 
+	public static final int DEFAULT_BATCH_SIZE = 100;
+	private static final int RANGES_PER_PROCESSOR = 4;
+
     private HybrisEntityMetadata<T> metadata;
     private final FlexibleSearchService flexibleSearchService;
     private final ModelService modelService;
+	private final FlexibleSearchStatements statements;
+	private final SortedQueryCache findAllQuery;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private ExecutorService executorService;
 	//private final PersistenceProvider provider;
 
 	//private LockMetadataProvider lockMetadataProvider;
@@ -77,6 +99,8 @@ public class SimpleJpaRepository<T extends ItemModel, ID extends Serializable> i
 		this.metadata = metadata;
 		this.flexibleSearchService = flexibleSearchService;
         this.modelService = modelService;
+		this.statements = new FlexibleSearchStatements(metadata.getTypecode());
+		this.findAllQuery = new SortedQueryCache(statements.selectAll());
 		//this.provider = PersistenceProvider.fromEntityManager(entityManager);
 	}
 
@@ -90,6 +114,30 @@ public class SimpleJpaRepository<T extends ItemModel, ID extends Serializable> i
         this(flexibleSearchService, modelService, new HybrisEntityMetadata<T>(domainClass));
 	}
 
+	/**
+	 * Configures the number of models handed to the {@link ModelService} at once by bulk operations like
+	 * {@link #save(Iterable)}. Defaults to {@value #DEFAULT_BATCH_SIZE}.
+	 * 
+	 * @param batchSize must be greater than zero.
+	 */
+	public void setBatchSize(int batchSize) {
+
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than zero!");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Configures the {@link ExecutorService} used to run the chunks of bulk lookups like {@link #findAll(Iterable)} and
+	 * the {@link PK} ranges of {@link #forEachParallel(ModelCallback)} in parallel. The executor bounds the parallelism
+	 * and is responsible for activating the Hybris tenant and session on its threads. Chunks are run in the calling
+	 * thread if none is configured.
+	 * 
+	 * @param executorService can be {@literal null}.
+	 */
+	public void setExecutorService(ExecutorService executorService) {
+		this.executorService = executorService;
+	}
+
 //	/**
 //	 * Configures a custom {@link LockMetadataProvider} to be used to detect {@link LockModeType}s to be applied to
 //	 * queries.
@@ -123,14 +171,23 @@ public class SimpleJpaRepository<T extends ItemModel, ID extends Serializable> i
 
 		Assert.notNull(id, "The given id must not be null!");
 
-		T entity = findOne(id);
+		if (!exists(id)) {
+			throw noSuchEntity(id);
+		}
 
-		if (entity == null) {
-			throw new EmptyResultDataAccessException(String.format("No %s entity with id %s exists!",
-                    metadata.getJavaType(), id), 1);
+		try {
+			modelService.remove(toPk(id));
+		} catch (RuntimeException e) {
+			if (e instanceof ModelLoadingException || e instanceof UnknownIdentifierException) {
+				throw noSuchEntity(id);
+			}
+			throw e;
 		}
+	}
 
-		delete(entity);
+	private EmptyResultDataAccessException noSuchEntity(ID id) {
+		return new EmptyResultDataAccessException(String.format("No %s entity with id %s exists!",
+				metadata.getJavaType(), id), 1);
 	}
 
 	/*
@@ -166,8 +223,83 @@ public class SimpleJpaRepository<T extends ItemModel, ID extends Serializable> i
 	@Transactional
 	public void deleteAll() {
 
-		for (T element : findAll()) {
-			delete(element);
+		PK lastSeen = null;
+		List<PK> pks;
+
+		do {
+			pks = findPksAfter(lastSeen, batchSize);
+
+			if (pks.isEmpty()) {
+				return;
+			}
+
+			List<Object> models = new ArrayList<Object>(pks.size());
+
+			for (PK pk : pks) {
+				models.add(modelService.get(pk));
+			}
+
+			modelService.removeAll(models);
+			detach(models);
+
+			lastSeen = pks.get(pks.size() - 1);
+		} while (pks.size() == batchSize);
+	}
+
+	/**
+	 * Returns at most {@code count} {@link PK}s of the managed type greater than the given one in ascending order without
+	 * instantiating any model.
+	 * 
+	 * @param lastSeen can be {@literal null} to start with the lowest {@link PK}.
+	 * @param count
+	 * @return
+	 */
+	private List<PK> findPksAfter(PK lastSeen, int count) {
+		return flexibleSearchService.<PK> search(createKeysetQuery(lastSeen, count, PK.class)).getResult();
+	}
+
+	/**
+	 * Creates a query selecting at most {@code count} items of the managed type with a {@link PK} greater than the given
+	 * one in ascending {@link PK} order.
+	 * 
+	 * @param lastSeen can be {@literal null} to start with the lowest {@link PK}.
+	 * @param count
+	 * @param resultClass the class to return the items as, must not be {@literal null}.
+	 * @return
+	 */
+	private FlexibleSearchQuery createKeysetQuery(PK lastSeen, int count, Class<?> resultClass) {
+
+		FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery(lastSeen == null ? statements
+				.selectOrderedByPk() : statements.selectAfterPk());
+		flexibleSearchQuery.setResultClassList(Arrays.asList(resultClass));
+		flexibleSearchQuery.setCount(count);
+
+		if (lastSeen != null) {
+			flexibleSearchQuery.addQueryParameter(FlexibleSearchStatements.LAST_SEEN_PARAMETER, lastSeen);
+		}
+
+		return flexibleSearchQuery;
+	}
+
+	/**
+	 * Returns the {@link PK} for the given id.
+	 * 
+	 * @param id must not be {@literal null}.
+	 * @return
+	 */
+	private PK toPk(ID id) {
+		return id instanceof PK ? (PK) id : PK.parse(id.toString());
+	}
+
+	/**
+	 * Detaches the given models from the model context to keep it from growing during bulk operations.
+	 * 
+	 * @param models must not be {@literal null}.
+	 */
+	private void detach(Iterable<?> models) {
+
+		for (Object model : models) {
+			modelService.detach(model);
 		}
 	}
 
@@ -182,9 +314,9 @@ public class SimpleJpaRepository<T extends ItemModel, ID extends Serializable> i
 		//LockModeType type = lockMetadataProvider == null ? null : lockMetadataProvider.getLockModeType();
 		//Class<T> domainType = getDomainClass();
 
-        FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery("select {PK} from {"+ metadata.getTypecode()  +"} where {pk} = ?pk");
+        FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery(statements.selectByPk());
         flexibleSearchQuery.setResultClassList(Arrays.asList(metadata.getJavaType()));
-        flexibleSearchQuery.addQueryParameter("pk", id);
+        flexibleSearchQuery.addQueryParameter(FlexibleSearchStatements.PK_PARAMETER, id);
         T search = flexibleSearchService.searchUnique(flexibleSearchQuery);
 
         return search;
@@ -199,28 +331,13 @@ public class SimpleJpaRepository<T extends ItemModel, ID extends Serializable> i
 	public boolean exists(ID id) {
 
 		Assert.notNull(id, "The given id must not be null!");
-        //TODO
-//		if (entityInformation.getIdAttribute() != null) {
-//
-//			String placeholder = provider.getCountQueryPlaceholder();
-//			String entityName = entityInformation.getEntityName();
-//			Iterable<String> idAttributeNames = entityInformation.getIdAttributeNames();
-//			String existsQuery = QueryUtils.getExistsQueryString(entityName, placeholder, idAttributeNames);
-//
-//			TypedQuery<Long> query = em.createQuery(existsQuery, Long.class);
-//
-//			if (entityInformation.hasCompositeId()) {
-//				for (String idAttributeName : idAttributeNames) {
-//					query.setParameter(idAttributeName, entityInformation.getCompositeIdAttributeValue(id, idAttributeName));
-//				}
-//			} else {
-//				query.setParameter(idAttributeNames.iterator().next(), id);
-//			}
-//
-//			return query.getSingleResult() == 1L;
-//		} else {
-			return findOne(id) != null;
-		//}
+
+		FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery(statements.selectByPk());
+		flexibleSearchQuery.setResultClassList(Arrays.asList(PK.class));
+		flexibleSearchQuery.addQueryParameter(FlexibleSearchStatements.PK_PARAMETER, id);
+		flexibleSearchQuery.setCount(1);
+
+		return !flexibleSearchService.<PK> search(flexibleSearchQuery).getResult().isEmpty();
 	}
 
 	/*
@@ -241,16 +358,75 @@ public class SimpleJpaRepository<T extends ItemModel, ID extends Serializable> i
 			return Collections.emptyList();
 		}
 
-        FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery("select {PK} from {"+ metadata.getTypecode()  +"} where {pk} in (?ids)");
-        flexibleSearchQuery.addQueryParameter("ids", ids);
-        flexibleSearchQuery.setResultClassList(Arrays.asList(metadata.getJavaType()));
+		List<PK> pks = new ArrayList<PK>();
+		Set<PK> distinctPks = new LinkedHashSet<PK>();
 
-        SearchResult<T> search = flexibleSearchService.search(flexibleSearchQuery);
+		for (ID id : ids) {
 
-      //  ByIdsSpecification specification = new ByIdsSpecification();
-	//	TypedQuery<T> query = getQuery(specification, (Sort) null);
+			PK pk = toPk(id);
 
-		return search.getResult(); //query.setParameter(specification.parameter, ids).getResultList();
+			pks.add(pk);
+			distinctPks.add(pk);
+		}
+
+		Map<PK, T> models = new HashMap<PK, T>(distinctPks.size());
+
+		// each id is looked up once, ids requested repeatedly are resolved to the same model for every occurrence
+		for (List<T> chunk : findAllInChunks(new ArrayList<PK>(distinctPks))) {
+			for (T model : chunk) {
+				models.put(model.getPk(), model);
+			}
+		}
+
+		List<T> result = new ArrayList<T>(pks.size());
+
+		for (PK pk : pks) {
+
+			T model = models.get(pk);
+
+			if (model != null) {
+				result.add(model);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Looks up the models for the given {@link PK}s in chunks of the configured batch size. Chunks are queried in
+	 * parallel if an {@link ExecutorService} is configured.
+	 * 
+	 * @param pks must not be {@literal null}.
+	 * @return the models found per chunk.
+	 */
+	private List<List<T>> findAllInChunks(List<PK> pks) {
+
+		List<List<PK>> chunks = new ArrayList<List<PK>>();
+
+		for (int from = 0; from < pks.size(); from += batchSize) {
+			chunks.add(pks.subList(from, Math.min(from + batchSize, pks.size())));
+		}
+
+		List<Callable<List<T>>> tasks = new ArrayList<Callable<List<T>>>(chunks.size());
+
+		for (final List<PK> chunk : chunks) {
+			tasks.add(new Callable<List<T>>() {
+				public List<T> call() {
+					return findAllByPks(chunk);
+				}
+			});
+		}
+
+		return invokeAll(executorService, tasks, "looking up models by id");
+	}
+
+	private List<T> findAllByPks(List<PK> pks) {
+
+		FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery(statements.selectByPks());
+		flexibleSearchQuery.addQueryParameter(FlexibleSearchStatements.PKS_PARAMETER, pks);
+		flexibleSearchQuery.setResultClassList(Arrays.asList(metadata.getJavaType()));
+
+		return flexibleSearchService.<T> search(flexibleSearchQuery).getResult();
 	}
 
 	/*
@@ -258,8 +434,7 @@ public class SimpleJpaRepository<T extends ItemModel, ID extends Serializable> i
 	 * @see org.springframework.data.hybris.repository.HybrisRepository#findAll(org.springframework.data.domain.Sort)
 	 */
 	public List<T> findAll(Sort sort) {
-        //TODO sort
-        FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery("select {PK} from {"+ metadata.getTypecode()  +"}");
+        FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery(findAllQuery.getQueryString(sort));
 
         flexibleSearchQuery.setResultClassList(Arrays.asList(metadata.getJavaType()));
 
@@ -271,6 +446,161 @@ public class SimpleJpaRepository<T extends ItemModel, ID extends Serializable> i
        // return getQuery(null, sort).getResultList();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.hybris.repository.HybrisRepository#findAllAfter(de.hybris.platform.core.PK, int)
+	 */
+	public KeysetPage<T> findAllAfter(PK lastSeen, int limit) {
+
+		Assert.isTrue(limit > 0, "Limit must be greater than zero!");
+
+		List<T> content = flexibleSearchService.<T> search(createKeysetQuery(lastSeen, limit, metadata.getJavaType()))
+				.getResult();
+		PK nextCursor = content.size() < limit ? null : content.get(content.size() - 1).getPk();
+
+		return new KeysetPage<T>(content, nextCursor);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.hybris.repository.HybrisRepository#streamAll()
+	 */
+	public Iterable<T> streamAll() {
+
+		return new Iterable<T>() {
+			public Iterator<T> iterator() {
+				return new KeysetIterator();
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.springframework.data.hybris.repository.HybrisRepository#forEachParallel(org.springframework.data.hybris.repository.ModelCallback)
+	 */
+	public void forEachParallel(final ModelCallback<? super T> callback) {
+
+		Assert.notNull(callback, "Callback must not be null!");
+
+		PK lowest = findBoundaryPk(statements.selectOrderedByPk());
+
+		if (lowest == null) {
+			return;
+		}
+
+		PK highest = findBoundaryPk(statements.selectOrderedByPkDescending());
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+		for (final long[] range : splitPkRange(lowest.getLongValue(), highest.getLongValue(), getRangeCount())) {
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					forEachInPkRange(range[0], range[1], callback);
+					return null;
+				}
+			});
+		}
+
+		invokeAll(executorService, tasks, "processing models in parallel");
+	}
+
+	/**
+	 * Returns the number of {@link PK} ranges {@link #forEachParallel(ModelCallback)} splits the managed type into. A
+	 * few ranges per processor keep the executor busy even if the items are unevenly spread across the {@link PK}
+	 * space.
+	 * 
+	 * @return
+	 */
+	private int getRangeCount() {
+		return executorService == null ? 1 : Runtime.getRuntime().availableProcessors() * RANGES_PER_PROCESSOR;
+	}
+
+	/**
+	 * Returns the first {@link PK} selected by the given statement.
+	 * 
+	 * @param statement must not be {@literal null}.
+	 * @return the {@link PK} or {@literal null} if there are no items of the managed type.
+	 */
+	private PK findBoundaryPk(String statement) {
+
+		FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery(statement);
+		flexibleSearchQuery.setResultClassList(Arrays.asList(PK.class));
+		flexibleSearchQuery.setCount(1);
+
+		List<PK> result = flexibleSearchService.<PK> search(flexibleSearchQuery).getResult();
+		return result.isEmpty() ? null : result.get(0);
+	}
+
+	/**
+	 * Splits the {@link PK} values from {@code lowest} to {@code highest}, both inclusive, into at most
+	 * {@code rangeCount} contiguous ranges.
+	 * 
+	 * @param lowest
+	 * @param highest must not be less than {@code lowest}.
+	 * @param rangeCount must be greater than zero.
+	 * @return the inclusive lower and upper bounds of each range in ascending order.
+	 */
+	static List<long[]> splitPkRange(long lowest, long highest, int rangeCount) {
+
+		long span = highest - lowest + 1;
+		long count = Math.min(rangeCount, span);
+		long step = span / count;
+
+		List<long[]> ranges = new ArrayList<long[]>((int) count);
+
+		for (long i = 0; i < count; i++) {
+
+			long lower = lowest + i * step;
+			long upper = i == count - 1 ? highest : lower + step - 1;
+
+			ranges.add(new long[] { lower, upper });
+		}
+
+		return ranges;
+	}
+
+	/**
+	 * Invokes the given callback for the models with a {@link PK} value from {@code lower} to {@code upper}, both
+	 * inclusive, reading their {@link PK}s in chunks of the configured batch size. Models are detached chunk by chunk.
+	 * 
+	 * @param lower
+	 * @param upper
+	 * @param callback must not be {@literal null}.
+	 */
+	private void forEachInPkRange(long lower, long upper, ModelCallback<? super T> callback) {
+
+		PK lastSeen = PK.fromLong(lower - 1);
+		PK upperBound = PK.fromLong(upper);
+		List<PK> pks;
+
+		do {
+			FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery(statements.selectAfterPkUpTo());
+			flexibleSearchQuery.setResultClassList(Arrays.asList(PK.class));
+			flexibleSearchQuery.setCount(batchSize);
+			flexibleSearchQuery.addQueryParameter(FlexibleSearchStatements.LAST_SEEN_PARAMETER, lastSeen);
+			flexibleSearchQuery.addQueryParameter(FlexibleSearchStatements.UPPER_BOUND_PARAMETER, upperBound);
+
+			pks = flexibleSearchService.<PK> search(flexibleSearchQuery).getResult();
+			List<T> models = new ArrayList<T>(pks.size());
+
+			try {
+
+				for (PK pk : pks) {
+
+					T model = modelService.get(pk);
+					models.add(model);
+					callback.doWithModel(model);
+				}
+
+			} finally {
+				detach(models);
+			}
+
+			if (!pks.isEmpty()) {
+				lastSeen = pks.get(pks.size() - 1);
+			}
+		} while (pks.size() == batchSize);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.springframework.data.repository.PagingAndSortingRepository#findAll(org.springframework.data.domain.Pageable)
@@ -285,10 +615,12 @@ public class SimpleJpaRepository<T extends ItemModel, ID extends Serializable> i
 	}
 
     private Page<T> findAllInternal(Pageable pageable) {
-        FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery("select {PK} from {"+ metadata.getTypecode()  +"}");
+        FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery(findAllQuery.getQueryString(pageable.getSort()));
 
         flexibleSearchQuery.setResultClassList(Arrays.asList(metadata.getJavaType()));
         flexibleSearchQuery.setNeedTotal(true);
+        flexibleSearchQuery.setStart(pageable.getOffset());
+        flexibleSearchQuery.setCount(pageable.getPageSize());
 
         SearchResult<T> search = flexibleSearchService.search(flexibleSearchQuery);
 
@@ -341,7 +673,7 @@ public class SimpleJpaRepository<T extends ItemModel, ID extends Serializable> i
 	 * @see org.springframework.data.repository.CrudRepository#count()
 	 */
 	public long count() {
-        FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery("select count({PK}) from {"+ metadata.getTypecode()  +"}");
+        FlexibleSearchQuery flexibleSearchQuery = new FlexibleSearchQuery(statements.count());
         flexibleSearchQuery.setResultClassList(Arrays.asList(Long.class));
 
         Long count = flexibleSearchService.<Long>searchUnique(flexibleSearchQuery);
@@ -395,8 +727,26 @@ public class SimpleJpaRepository<T extends ItemModel, ID extends Serializable> i
 			return result;
 		}
 
+		List<S> batch = new ArrayList<S>(batchSize);
+
 		for (S entity : entities) {
-			result.add(save(entity));
+
+			if (modelService.isNew(entity)) {
+				batch.add(entity);
+			} else {
+				modelService.attach(entity);
+			}
+
+			if (batch.size() == batchSize) {
+				modelService.saveAll(batch);
+				batch = new ArrayList<S>(batchSize);
+			}
+
+			result.add(entity);
+		}
+
+		if (!batch.isEmpty()) {
+			modelService.saveAll(batch);
 		}
 
 		return result;
@@ -536,4 +886,72 @@ public class SimpleJpaRepository<T extends ItemModel, ID extends Serializable> i
 //			return path.in(parameter);
 //		}
 //	}
+
+	/**
+	 * {@link Iterator} reading the {@link PK}s of the managed type in chunks of the configured batch size and resolving
+	 * the models lazily. Models returned from a chunk are detached before the next chunk is read.
+	 * 
+	 * @author Kamill Sokol
+	 */
+	private class KeysetIterator implements Iterator<T> {
+
+		private final List<T> returned = new ArrayList<T>();
+		private List<PK> chunk = Collections.emptyList();
+		private int position;
+		private PK lastSeen;
+		private boolean exhausted;
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.Iterator#hasNext()
+		 */
+		public boolean hasNext() {
+
+			if (position < chunk.size()) {
+				return true;
+			}
+
+			detach(returned);
+			returned.clear();
+
+			if (exhausted) {
+				return false;
+			}
+
+			chunk = findPksAfter(lastSeen, batchSize);
+			position = 0;
+			exhausted = chunk.size() < batchSize;
+
+			if (chunk.isEmpty()) {
+				return false;
+			}
+
+			lastSeen = chunk.get(chunk.size() - 1);
+			return true;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.Iterator#next()
+		 */
+		public T next() {
+
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			T model = modelService.get(chunk.get(position++));
+			returned.add(model);
+
+			return model;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.Iterator#remove()
+		 */
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
 }
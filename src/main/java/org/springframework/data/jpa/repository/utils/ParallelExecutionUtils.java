@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.jpa.repository.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.util.Assert;
+
+/**
+ * Utility class to run tasks on an optional {@link ExecutorService}.
+ * 
+ * @author Kamill Sokol
+ */
+public abstract class ParallelExecutionUtils {
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private ParallelExecutionUtils() {
+
+	}
+
+	/**
+	 * Runs the given tasks on the given {@link ExecutorService} and returns their results in task order. Tasks are run
+	 * one after the other in the calling thread if no {@link ExecutorService} is given or there is a single task only.
+	 * Runtime exceptions thrown by a task are rethrown as is, checked ones and interruption are reported as
+	 * {@link DataRetrievalFailureException}.
+	 * 
+	 * @param executorService can be {@literal null}.
+	 * @param tasks must not be {@literal null}.
+	 * @param activity description of the tasks used in exception messages, e.g. {@code looking up models by id}.
+	 * @return
+	 */
+	public static <V> List<V> invokeAll(ExecutorService executorService, List<Callable<V>> tasks, String activity) {
+
+		Assert.notNull(tasks, "Tasks must not be null!");
+
+		List<V> result = new ArrayList<V>(tasks.size());
+
+		try {
+
+			if (executorService == null || tasks.size() <= 1) {
+
+				for (Callable<V> task : tasks) {
+					result.add(task.call());
+				}
+
+				return result;
+			}
+
+			for (Future<V> future : executorService.invokeAll(tasks)) {
+				result.add(future.get());
+			}
+
+			return result;
+
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			throw new DataRetrievalFailureException(String.format("Interrupted while %s!", activity), e);
+
+		} catch (ExecutionException e) {
+
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+
+			throw new DataRetrievalFailureException(String.format("Failed %s!", activity), e.getCause());
+
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new DataRetrievalFailureException(String.format("Failed %s!", activity), e);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hybris.repository.query;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.springframework.data.hybris.repository.query.FlexibleSearchQueryUtils.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.domain.Sort.Order;
+
+/**
+ * Unit tests for {@link FlexibleSearchQueryUtils}.
+ *
+ * @author Kamill Sokol
+ */
+public class FlexibleSearchQueryUtilsUnitTest {
+
+	@Test
+	public void returnsQueryUnchangedWithoutSort() {
+		assertThat(applySorting("select {PK} from {Product}", null), is("select {PK} from {Product}"));
+	}
+
+	@Test
+	public void appendsOrderByClause() {
+
+		Sort sort = new Sort(Direction.ASC, "code").and(new Sort(new Order(Direction.DESC, "name").ignoreCase()));
+
+		assertThat(applySorting("select {PK} from {Product}", sort),
+				is("select {PK} from {Product} ORDER BY {code} ASC, LOWER({name}) DESC"));
+	}
+
+	@Test
+	public void qualifiesPropertiesWithAlias() {
+		assertThat(applySorting("select {p.PK} from {Product AS p}", new Sort("code"), "p"),
+				is("select {p.PK} from {Product AS p} ORDER BY {p.code} ASC"));
+	}
+
+	@Test
+	public void extendsExistingOrderByClause() {
+		assertThat(applySorting("select {PK} from {Product} order by {name}", new Sort("code")),
+				is("select {PK} from {Product} order by {name}, {code} ASC"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsSortPropertyClosingAttributeReference() {
+		applySorting("select {p.PK} from {Product AS p}", new Sort("code} ; DROP"), "p");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsFunctionCallAsSortProperty() {
+		applySorting("select {p.PK} from {Product AS p}", new Sort("LOWER(x)"), "p");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsDottedSortPropertyNotReferencingJoinedType() {
+		applySorting("select {p.PK} from {Product AS p}", new Sort("c.name"), "p");
+	}
+
+	@Test
+	public void appendsOrdersToQueryKnownToBeOrderedWithoutParsingIt() {
+
+		String query = "SELECT {p.PK} FROM {Product AS p} ORDER BY {p.code} ASC";
+
+		assertThat(applySorting(query, true, new Sort("name"), "p", Collections.<String> emptySet()),
+				is(query + ", {p.name} ASC"));
+	}
+
+	@Test
+	public void derivesCountQueryWithoutOrderBy() {
+		assertThat(createCountQueryFor("SELECT {p.PK} FROM {Product AS p} WHERE {p.code} = ?code ORDER BY {p.name}"),
+				is("SELECT COUNT({p.PK}) FROM {Product AS p} WHERE {p.code} = ?code"));
+	}
+
+	@Test
+	public void dropsNeedlessDistinctInDerivedCountQuery() {
+		assertThat(createCountQueryFor("select distinct {p.PK} from {Product AS p}"),
+				is("SELECT COUNT({p.PK}) from {Product AS p}"));
+	}
+
+	@Test
+	public void keepsDistinctInDerivedCountQueryOfJoinedTypes() {
+		assertThat(createCountQueryFor("SELECT DISTINCT {p.PK} FROM {Product AS p JOIN Category AS c ON {p.category} = "
+				+ "{c.PK}} ORDER BY {c.name}"), is("SELECT COUNT(DISTINCT {p.PK}) FROM {Product AS p JOIN Category AS c "
+				+ "ON {p.category} = {c.PK}}"));
+	}
+
+	@Test
+	public void countsRowsOfSeveralColumns() {
+		assertThat(createCountQueryFor("SELECT {p.code}, COALESCE({p.name}, {p.code}) FROM {Product AS p}"),
+				is("SELECT COUNT(*) FROM {Product AS p}"));
+	}
+
+	@Test
+	public void keepsFunctionCallsInDerivedCountQuery() {
+		assertThat(createCountQueryFor("SELECT DISTINCT COALESCE({p.name}, {p.code}) FROM {Product AS p}"),
+				is("SELECT COUNT(DISTINCT COALESCE({p.name}, {p.code})) FROM {Product AS p}"));
+	}
+
+	@Test
+	public void countsGroupsInSubquery() {
+		assertThat(createCountQueryFor("SELECT {p.catalog}, COUNT({p.PK}) FROM {Product AS p} GROUP BY {p.catalog} "
+				+ "ORDER BY {p.catalog}"), is("SELECT COUNT(*) FROM ({{ SELECT {p.catalog}, COUNT({p.PK}) FROM "
+				+ "{Product AS p} GROUP BY {p.catalog} }}) c"));
+	}
+
+	@Test
+	public void countsDistinctCompositeProjectionInSubquery() {
+		assertThat(createCountQueryFor("SELECT DISTINCT {p.code}, {p.name} FROM {Product AS p} ORDER BY {p.code}"),
+				is("SELECT COUNT(*) FROM ({{ SELECT DISTINCT {p.code}, {p.name} FROM {Product AS p} }}) c"));
+	}
+
+	@Test
+	public void ignoresOrderByOfSubqueryInDerivedCountQuery() {
+
+		String query = "SELECT {p.PK} FROM {Product AS p} WHERE {p.PK} IN ({{ SELECT {c.product} FROM {Comment AS c} "
+				+ "ORDER BY {c.creationtime} }})";
+
+		assertThat(createCountQueryFor(query), is(query.replace("SELECT {p.PK}", "SELECT COUNT({p.PK})")));
+	}
+
+	@Test
+	public void referencesAttributesOfJoinedTypesByJoinAlias() {
+
+		String query = "SELECT {p.PK} FROM {Product AS p JOIN Category AS c ON {p.category} = {c.PK}}";
+		ParsedFlexibleSearchQuery parsed = ParsedFlexibleSearchQuery.parse(query);
+		Set<String> joinAliases = parsed.getJoinAliases();
+
+		assertThat(joinAliases, is((Set<String>) new HashSet<String>(Arrays.asList("c"))));
+		assertThat(applySorting(parsed, new Sort("c.name", "code"), "p", joinAliases),
+				is(query + " ORDER BY {c.name} ASC, {p.code} ASC"));
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hybris.repository.query;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.springframework.data.hybris.repository.query.ParsedFlexibleSearchQuery.Parameter;
+import org.springframework.data.hybris.repository.query.ParsedFlexibleSearchQuery.Subquery;
+
+/**
+ * Unit tests for {@link ParsedFlexibleSearchQuery}.
+ *
+ * @author Kamill Sokol
+ */
+public class ParsedFlexibleSearchQueryUnitTest {
+
+	@Test
+	public void detectsProjectionClausesAndOrderByOffset() {
+
+		String query = "SELECT DISTINCT {p.PK} FROM {Product AS p} WHERE {p.code} = ?code ORDER BY {p.name}";
+		ParsedFlexibleSearchQuery parsed = ParsedFlexibleSearchQuery.parse(query);
+
+		assertThat(parsed.getProjection(), is("{p.PK}"));
+		assertThat(parsed.isDistinct(), is(true));
+		assertThat(parsed.getFromClauses(), is("FROM {Product AS p} WHERE {p.code} = ?code"));
+		assertThat(parsed.hasOrderBy(), is(true));
+		assertThat(parsed.getOrderByOffset(), is(query.indexOf("ORDER BY")));
+	}
+
+	@Test
+	public void detectsAliasAndJoinAliases() {
+
+		ParsedFlexibleSearchQuery parsed = ParsedFlexibleSearchQuery.parse("SELECT {p.PK} FROM {Product AS p "
+				+ "LEFT JOIN Category AS c ON {p.category} = {c.PK} JOIN Unit! AS u ON {p.unit} = {u.PK}}");
+
+		assertThat(parsed.getAlias(), is("p"));
+		assertThat(parsed.getJoinAliases(), is((Set<String>) new LinkedHashSet<String>(Arrays.asList("c", "u"))));
+	}
+
+	@Test
+	public void lacksAliasOfUnaliasedType() {
+		assertThat(ParsedFlexibleSearchQuery.parse("select {PK} from {Product}").getAlias(), is(nullValue()));
+	}
+
+	@Test
+	public void detectsTypeCodesAndAttributeReferencesOfOuterQuery() {
+
+		ParsedFlexibleSearchQuery parsed = ParsedFlexibleSearchQuery.parse("SELECT {p.PK} FROM {Product! AS p "
+				+ "JOIN Category AS c ON {p.category} = {c.PK}} WHERE {p.name[en]:o} = ?name AND {p.PK} IN "
+				+ "({{ SELECT {x.product} FROM {Comment AS x} }})");
+
+		Map<String, String> typeCodes = new LinkedHashMap<String, String>();
+		typeCodes.put("p", "Product");
+		typeCodes.put("c", "Category");
+
+		assertThat(parsed.getTypeCode(), is("Product"));
+		assertThat(parsed.getAliasedTypeCodes(), is(typeCodes));
+		assertThat(parsed.getAttributeReferences(),
+				is(Arrays.asList("p.PK", "p.category", "c.PK", "p.name[en]:o", "p.PK")));
+	}
+
+	@Test
+	public void detectsParametersWithBindingKeywordsAndWildcards() {
+
+		String query = "SELECT {PK} FROM {Product} WHERE {code} = ?1 AND {name} LIKE %?name% AND {ean} IN (?eans)";
+		List<Parameter> parameters = ParsedFlexibleSearchQuery.parse(query).getParameters();
+
+		assertThat(parameters.size(), is(3));
+
+		assertThat(parameters.get(0).getName(), is("1"));
+		assertThat(parameters.get(0).isPositional(), is(true));
+		assertThat(parameters.get(0).getKeyword(), is(nullValue()));
+		assertThat(parameters.get(0).getStart(), is(query.indexOf("?1")));
+
+		assertThat(parameters.get(1).getName(), is("name"));
+		assertThat(parameters.get(1).isPositional(), is(false));
+		assertThat(parameters.get(1).getKeyword(), is("like"));
+		assertThat(parameters.get(1).hasLeadingWildcard(), is(true));
+		assertThat(parameters.get(1).hasTrailingWildcard(), is(true));
+
+		assertThat(parameters.get(2).getName(), is("eans"));
+		assertThat(parameters.get(2).getKeyword(), is("in"));
+		assertThat(parameters.get(2).getEnd(), is(query.length() - 1));
+	}
+
+	@Test
+	public void ignoresClausesOfSubqueries() {
+
+		String query = "SELECT {p.PK} FROM {Product AS p} WHERE {p.PK} IN ({{ SELECT {c.product} FROM {Comment AS c} "
+				+ "WHERE {c.author} = ?author ORDER BY {c.creationtime} }})";
+		ParsedFlexibleSearchQuery parsed = ParsedFlexibleSearchQuery.parse(query);
+
+		assertThat(parsed.getAlias(), is("p"));
+		assertThat(parsed.getJoinAliases().isEmpty(), is(true));
+		assertThat(parsed.hasOrderBy(), is(false));
+		assertThat(parsed.getParameters().get(0).getName(), is("author"));
+
+		Subquery subquery = parsed.getSubqueries().get(0);
+
+		assertThat(subquery.getStart(), is(query.indexOf("{{")));
+		assertThat(subquery.getEnd(), is(query.length() - 1));
+	}
+
+	@Test
+	public void ignoresStringLiterals() {
+
+		ParsedFlexibleSearchQuery parsed = ParsedFlexibleSearchQuery
+				.parse("SELECT {PK} FROM {Product} WHERE {name} = 'it''s ?no order by' AND {code} = ?code");
+
+		assertThat(parsed.hasOrderBy(), is(false));
+		assertThat(parsed.getParameters().size(), is(1));
+		assertThat(parsed.getParameters().get(0).getName(), is("code"));
+	}
+
+	@Test
+	public void lacksProjectionWithoutSelect() {
+		assertThat(ParsedFlexibleSearchQuery.parse("{Product AS p}").getProjection(), is(nullValue()));
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hybris.repository.query;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Unit tests for {@link SortedQueryCache}.
+ *
+ * @author Kamill Sokol
+ */
+public class SortedQueryCacheUnitTest {
+
+	@Test
+	public void returnsUnsortedQueryForNullSort() {
+		assertThat(new SortedQueryCache("select {PK} from {Product}").getQueryString(null),
+				is("select {PK} from {Product}"));
+	}
+
+	@Test
+	public void returnsSameInstanceForEqualSorts() {
+
+		SortedQueryCache cache = new SortedQueryCache("select {PK} from {Product}");
+
+		String first = cache.getQueryString(new Sort("code"));
+		String second = cache.getQueryString(new Sort("code"));
+
+		assertThat(first, is("select {PK} from {Product} ORDER BY {code} ASC"));
+		assertThat(second, is(sameInstance(first)));
+	}
+
+	@Test
+	public void rendersSortsBeyondCapacityWithoutCachingThem() {
+
+		SortedQueryCache cache = new SortedQueryCache("select {PK} from {Product}", null, 1);
+		cache.getQueryString(new Sort("code"));
+
+		String first = cache.getQueryString(new Sort("name"));
+		String second = cache.getQueryString(new Sort("name"));
+
+		assertThat(second, is(first));
+		assertThat(second, is(not(sameInstance(first))));
+	}
+}
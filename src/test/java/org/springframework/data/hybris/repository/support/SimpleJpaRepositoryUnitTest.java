@@ -0,0 +1,439 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hybris.repository.support;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.servicelayer.exceptions.ModelLoadingException;
+import de.hybris.platform.servicelayer.exceptions.UnknownIdentifierException;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.hybris.domain.KeysetPage;
+import org.springframework.data.hybris.repository.ModelCallback;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+
+/**
+ * Unit tests for {@link SimpleJpaRepository}.
+ *
+ * @author Kamill Sokol
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SimpleJpaRepositoryUnitTest {
+
+	SimpleJpaRepository<ItemModel, PK> repo;
+
+	@Mock
+	FlexibleSearchService flexibleSearchService;
+	@Mock
+	ModelService modelService;
+	@Mock
+	SearchResult<Object> searchResult;
+	@Mock
+	SearchResult<Object> nextSearchResult;
+
+	@Before
+	public void setUp() {
+		repo = new SimpleJpaRepository<ItemModel, PK>(ItemModel.class, flexibleSearchService, modelService);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNonPositiveBatchSize() {
+		repo.setBatchSize(0);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void savesNewModelsInBatches() {
+
+		ItemModel first = new ItemModel();
+		ItemModel second = new ItemModel();
+		ItemModel third = new ItemModel();
+		when(modelService.isNew(any())).thenReturn(true);
+
+		repo.setBatchSize(2);
+		List<ItemModel> result = repo.save(Arrays.asList(first, second, third));
+
+		assertThat(result, hasItems(first, second, third));
+		verify(modelService, times(2)).saveAll(any(Collection.class));
+		verify(modelService, never()).save(any());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void attachesExistingModelsInsteadOfSavingThem() {
+
+		ItemModel existing = new ItemModel();
+		when(modelService.isNew(existing)).thenReturn(false);
+
+		repo.save(Arrays.asList(existing));
+
+		verify(modelService).attach(existing);
+		verify(modelService, never()).saveAll(any(Collection.class));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void appliesPageableToFlexibleSearchQuery() {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(new ItemModel()));
+		when(searchResult.getTotalCount()).thenReturn(42);
+
+		repo.findAll(new PageRequest(2, 10, Direction.DESC, "code"));
+
+		ArgumentCaptor<FlexibleSearchQuery> captor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService).search(captor.capture());
+
+		FlexibleSearchQuery query = captor.getValue();
+		assertThat(query.getQuery(), is("select {PK} from {Item} ORDER BY {code} DESC"));
+		assertThat(query.getStart(), is(20));
+		assertThat(query.getCount(), is(10));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void appliesSortToFlexibleSearchQuery() {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+
+		repo.findAll(new Sort(Direction.ASC, "code"));
+
+		ArgumentCaptor<FlexibleSearchQuery> captor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService).search(captor.capture());
+		assertThat(captor.getValue().getQuery(), is("select {PK} from {Item} ORDER BY {code} ASC"));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void deletesAllModelsInChunksOfPks() {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult,
+				(SearchResult) nextSearchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(PK.fromLong(1), PK.fromLong(2)));
+		when(nextSearchResult.getResult()).thenReturn((List) Arrays.asList(PK.fromLong(3)));
+
+		repo.setBatchSize(2);
+		repo.deleteAll();
+
+		ArgumentCaptor<FlexibleSearchQuery> captor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService, times(2)).search(captor.capture());
+		verify(modelService, times(2)).removeAll(any(Collection.class));
+		verify(modelService, times(3)).get(any(PK.class));
+
+		FlexibleSearchQuery secondQuery = captor.getAllValues().get(1);
+		assertThat(secondQuery.getQuery(), is("select {PK} from {Item} where {PK} > ?lastSeen order by {PK}"));
+		assertThat(secondQuery.getQueryParameters().get("lastSeen"), is((Object) PK.fromLong(2)));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void checksExistenceWithoutLoadingModel() {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(PK.fromLong(1)));
+
+		assertThat(repo.exists(PK.fromLong(1)), is(true));
+
+		ArgumentCaptor<FlexibleSearchQuery> captor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService).search(captor.capture());
+		assertThat(captor.getValue().getCount(), is(1));
+		verify(flexibleSearchService, never()).searchUnique(any(FlexibleSearchQuery.class));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void removesModelByPkOfRepositoryType() {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(PK.fromLong(1)));
+
+		repo.delete(PK.fromLong(1));
+
+		ArgumentCaptor<FlexibleSearchQuery> captor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService).search(captor.capture());
+		assertThat(captor.getValue().getQuery(), is("select {PK} from {Item} where {PK} = ?pk"));
+		verify(modelService).remove(PK.fromLong(1));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void doesNotRemoveItemOfOtherTypeWithSamePk() {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn(Collections.emptyList());
+
+		try {
+			repo.delete(PK.fromLong(1));
+			fail("Expected EmptyResultDataAccessException!");
+		} catch (EmptyResultDataAccessException e) {
+			verify(modelService, never()).remove(any(PK.class));
+		}
+	}
+
+	@Test(expected = EmptyResultDataAccessException.class)
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void rejectsDeletionOfItemRemovedConcurrently() {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(PK.fromLong(1)));
+		doThrow(new ModelLoadingException("no such item")).when(modelService).remove(PK.fromLong(1));
+
+		repo.delete(PK.fromLong(1));
+	}
+
+	@Test(expected = EmptyResultDataAccessException.class)
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void rejectsDeletionOfUnknownId() {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(PK.fromLong(1)));
+		doThrow(new UnknownIdentifierException("no such item")).when(modelService).remove(PK.fromLong(1));
+
+		repo.delete(PK.fromLong(1));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void looksUpIdsInChunksAndKeepsCallerOrder() {
+
+		ItemModel first = modelWithPk(1);
+		ItemModel second = modelWithPk(2);
+		ItemModel third = modelWithPk(3);
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult,
+				(SearchResult) nextSearchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(first, third));
+		when(nextSearchResult.getResult()).thenReturn((List) Arrays.asList(second));
+
+		repo.setBatchSize(2);
+		List<ItemModel> result = repo.findAll(Arrays.asList(PK.fromLong(3), PK.fromLong(1), PK.fromLong(2)));
+
+		assertThat(result, is(Arrays.asList(third, first, second)));
+		verify(flexibleSearchService, times(2)).search(any(FlexibleSearchQuery.class));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void looksUpRepeatedIdOnceAndReturnsModelPerOccurrence() {
+
+		ItemModel first = modelWithPk(1);
+		ItemModel second = modelWithPk(2);
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(first, second));
+
+		List<ItemModel> result = repo.findAll(Arrays.asList(PK.fromLong(2), PK.fromLong(1), PK.fromLong(2)));
+
+		assertThat(result, is(Arrays.asList(second, first, second)));
+
+		ArgumentCaptor<FlexibleSearchQuery> captor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService).search(captor.capture());
+		assertThat(captor.getValue().getQueryParameters().get("pks"),
+				is((Object) Arrays.asList(PK.fromLong(2), PK.fromLong(1))));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void readsKeysetPageAfterGivenPk() {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(modelWithPk(5), modelWithPk(7)));
+
+		KeysetPage<ItemModel> page = repo.findAllAfter(PK.fromLong(4), 2);
+
+		assertThat(page.getNextCursor(), is(PK.fromLong(7)));
+
+		ArgumentCaptor<FlexibleSearchQuery> captor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService).search(captor.capture());
+		assertThat(captor.getValue().getQuery(), is("select {PK} from {Item} where {PK} > ?lastSeen order by {PK}"));
+		assertThat(captor.getValue().getCount(), is(2));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void returnsNoCursorForLastKeysetPage() {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(modelWithPk(5)));
+
+		KeysetPage<ItemModel> page = repo.findAllAfter(null, 2);
+
+		assertThat(page.hasNext(), is(false));
+		assertThat(page.getContent().size(), is(1));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void streamsAllModelsChunkByChunk() {
+
+		ItemModel first = new ItemModel();
+		ItemModel second = new ItemModel();
+		ItemModel third = new ItemModel();
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult,
+				(SearchResult) nextSearchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(PK.fromLong(1), PK.fromLong(2)));
+		when(nextSearchResult.getResult()).thenReturn((List) Arrays.asList(PK.fromLong(3)));
+		when(modelService.get(PK.fromLong(1))).thenReturn(first);
+		when(modelService.get(PK.fromLong(2))).thenReturn(second);
+		when(modelService.get(PK.fromLong(3))).thenReturn(third);
+
+		repo.setBatchSize(2);
+		Iterator<ItemModel> iterator = repo.streamAll().iterator();
+
+		assertThat(iterator.next(), is(first));
+		assertThat(iterator.next(), is(second));
+		verify(modelService, never()).detach(any());
+
+		assertThat(iterator.next(), is(third));
+		verify(modelService).detach(first);
+		verify(modelService).detach(second);
+
+		verify(modelService, never()).detach(third);
+
+		assertThat(iterator.hasNext(), is(false));
+		assertThat(iterator.hasNext(), is(false));
+		verify(modelService, times(1)).detach(third);
+		verify(flexibleSearchService, times(2)).search(any(FlexibleSearchQuery.class));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void detachesLastFullChunkOnceStreamIsDrained() {
+
+		ItemModel first = new ItemModel();
+		ItemModel second = new ItemModel();
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult,
+				(SearchResult) nextSearchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(PK.fromLong(1), PK.fromLong(2)));
+		when(nextSearchResult.getResult()).thenReturn(Collections.emptyList());
+		when(modelService.get(PK.fromLong(1))).thenReturn(first);
+		when(modelService.get(PK.fromLong(2))).thenReturn(second);
+
+		repo.setBatchSize(2);
+		Iterator<ItemModel> iterator = repo.streamAll().iterator();
+
+		assertThat(iterator.next(), is(first));
+		assertThat(iterator.next(), is(second));
+		assertThat(iterator.hasNext(), is(false));
+
+		verify(modelService).detach(first);
+		verify(modelService).detach(second);
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void skipsParallelTraversalOfEmptyType() {
+
+		ModelCallback<ItemModel> callback = mock(ModelCallback.class);
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn(Collections.emptyList());
+
+		repo.forEachParallel(callback);
+
+		verify(flexibleSearchService, times(1)).search(any(FlexibleSearchQuery.class));
+		verifyZeroInteractions(callback);
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void visitsPkRangeChunkByChunkAndDetachesModels() {
+
+		ModelCallback<ItemModel> callback = mock(ModelCallback.class);
+		ItemModel first = new ItemModel();
+		ItemModel second = new ItemModel();
+		ItemModel third = new ItemModel();
+
+		SearchResult lowest = mock(SearchResult.class);
+		SearchResult highest = mock(SearchResult.class);
+		when(lowest.getResult()).thenReturn(Arrays.asList(PK.fromLong(1)));
+		when(highest.getResult()).thenReturn(Arrays.asList(PK.fromLong(3)));
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(PK.fromLong(1), PK.fromLong(2)));
+		when(nextSearchResult.getResult()).thenReturn((List) Arrays.asList(PK.fromLong(3)));
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn(lowest, highest,
+				(SearchResult) searchResult, (SearchResult) nextSearchResult);
+		when(modelService.get(PK.fromLong(1))).thenReturn(first);
+		when(modelService.get(PK.fromLong(2))).thenReturn(second);
+		when(modelService.get(PK.fromLong(3))).thenReturn(third);
+
+		repo.setBatchSize(2);
+		repo.forEachParallel(callback);
+
+		verify(callback).doWithModel(first);
+		verify(callback).doWithModel(second);
+		verify(callback).doWithModel(third);
+		verify(modelService).detach(first);
+		verify(modelService).detach(second);
+		verify(modelService).detach(third);
+
+		ArgumentCaptor<FlexibleSearchQuery> captor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService, times(4)).search(captor.capture());
+
+		FlexibleSearchQuery rangeQuery = captor.getAllValues().get(2);
+		assertThat(rangeQuery.getQuery(),
+				is("select {PK} from {Item} where {PK} > ?lastSeen and {PK} <= ?upperBound order by {PK}"));
+		assertThat(rangeQuery.getQueryParameters().get("lastSeen"), is((Object) PK.fromLong(0)));
+		assertThat(rangeQuery.getQueryParameters().get("upperBound"), is((Object) PK.fromLong(3)));
+		assertThat(captor.getAllValues().get(3).getQueryParameters().get("lastSeen"), is((Object) PK.fromLong(2)));
+	}
+
+	@Test
+	public void reusesStatementAcrossInvocations() {
+
+		when(flexibleSearchService.searchUnique(any(FlexibleSearchQuery.class))).thenReturn(1L);
+
+		repo.count();
+		repo.count();
+
+		ArgumentCaptor<FlexibleSearchQuery> captor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService, times(2)).searchUnique(captor.capture());
+
+		assertThat(captor.getAllValues().get(0).getQuery(), is("select count({PK}) from {Item}"));
+		assertThat(captor.getAllValues().get(1).getQuery(), is(sameInstance(captor.getAllValues().get(0).getQuery())));
+	}
+
+	private static ItemModel modelWithPk(long pk) {
+
+		ItemModel model = mock(ItemModel.class);
+		when(model.getPk()).thenReturn(PK.fromLong(pk));
+		return model;
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.jpa.repository.query;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import de.hybris.platform.core.model.ItemModel;
+import org.junit.Test;
+import org.springframework.data.hybris.repository.core.HybrisEntityMetadata;
+import org.springframework.data.repository.query.ParametersParameterAccessor;
+import org.springframework.data.repository.query.parser.PartTree;
+
+/**
+ * Unit tests for {@link FlexibleSearchQueryCreator}.
+ *
+ * @author Kamill Sokol
+ */
+public class FlexibleSearchQueryCreatorUnitTest {
+
+	static final HybrisEntityMetadata<ItemModel> ENTITY_METADATA = new HybrisEntityMetadata<ItemModel>(ItemModel.class);
+
+	@Test
+	public void compilesPartsIntoWhereClause() throws Exception {
+
+		FlexibleSearchQueryCreator creator = createCreator("findByOwnerOrCreationtimeAfter", ItemModel.class,
+				Date.class);
+
+		assertThat(creator.createQuery(),
+				is("SELECT {x.PK} FROM {Item AS x} WHERE {x.owner} = ?p0 OR {x.creationtime} > ?p1"));
+		assertThat(creator.getParameterExpressions().size(), is(2));
+		assertThat(creator.getParameterExpressions().get(1).getName(), is("p1"));
+	}
+
+	@Test
+	public void compilesInClauseAndStaticOrder() throws Exception {
+
+		FlexibleSearchQueryCreator creator = createCreator("findByOwnerInOrderByCreationtimeDesc", Collection.class);
+
+		assertThat(creator.createQuery(),
+				is("SELECT {x.PK} FROM {Item AS x} WHERE {x.owner} IN (?p0) ORDER BY {x.creationtime} DESC"));
+	}
+
+	@Test
+	public void compilesCountProjection() throws Exception {
+
+		Method method = SampleRepository.class.getMethod("countByOwner", ItemModel.class);
+		JpaParameters parameters = new JpaParameters(method);
+		FlexibleSearchQueryCreator creator = new FlexibleSearchCountQueryCreator(new PartTree(method.getName(),
+				ItemModel.class), ENTITY_METADATA, new ParameterMetadataProvider(parameters));
+
+		assertThat(creator.createQuery(), is("SELECT COUNT({x.PK}) FROM {Item AS x} WHERE {x.owner} = ?p0"));
+	}
+
+	@Test
+	public void compilesNullArgumentIntoIsNullCriterion() throws Exception {
+
+		Method method = SampleRepository.class.getMethod("findByOwner", ItemModel.class);
+		JpaParameters parameters = new JpaParameters(method);
+		ParametersParameterAccessor accessor = new ParametersParameterAccessor(parameters, new Object[] { null });
+		FlexibleSearchQueryCreator creator = new FlexibleSearchQueryCreator(new PartTree(method.getName(),
+				ItemModel.class), ENTITY_METADATA, new ParameterMetadataProvider(accessor));
+
+		assertThat(creator.createQuery(), is("SELECT {x.PK} FROM {Item AS x} WHERE {x.owner} IS NULL"));
+		assertThat(creator.getParameterExpressions().get(0).isIsNullParameter(), is(true));
+	}
+
+	@Test
+	public void compilesNestedPropertyPathIntoJoin() throws Exception {
+
+		FlexibleSearchQueryCreator creator = createCreator("findByOwner_Creationtime", Date.class);
+
+		assertThat(creator.createQuery(), is("SELECT {x.PK} FROM {Item AS x LEFT JOIN Item AS j0 ON {x.owner} = {j0.PK}}"
+				+ " WHERE {j0.creationtime} = ?p0"));
+	}
+
+	@Test
+	public void reusesJoinAliasesAcrossPartsAndOrder() throws Exception {
+
+		FlexibleSearchQueryCreator creator = createCreator(
+				"findByOwner_Owner_CreationtimeOrOwner_CreationtimeOrderByOwner_Owner_CreationtimeAsc", Date.class,
+				Date.class);
+
+		assertThat(creator.createQuery(), is("SELECT {x.PK} FROM {Item AS x"
+				+ " LEFT JOIN Item AS j0 ON {x.owner} = {j0.PK} LEFT JOIN Item AS j1 ON {j0.owner} = {j1.PK}}"
+				+ " WHERE {j1.creationtime} = ?p0 OR {j0.creationtime} = ?p1 ORDER BY {j1.creationtime} ASC"));
+	}
+
+	private static FlexibleSearchQueryCreator createCreator(String methodName, Class<?>... parameterTypes)
+			throws Exception {
+
+		Method method = SampleRepository.class.getMethod(methodName, parameterTypes);
+		JpaParameters parameters = new JpaParameters(method);
+
+		return new FlexibleSearchQueryCreator(new PartTree(method.getName(), ItemModel.class), ENTITY_METADATA,
+				new ParameterMetadataProvider(parameters));
+	}
+
+	interface SampleRepository {
+
+		List<ItemModel> findByOwnerOrCreationtimeAfter(ItemModel owner, Date date);
+
+		List<ItemModel> findByOwnerInOrderByCreationtimeDesc(Collection<ItemModel> owners);
+
+		List<ItemModel> findByOwner(ItemModel owner);
+
+		List<ItemModel> findByOwner_Creationtime(Date date);
+
+		List<ItemModel> findByOwner_Owner_CreationtimeOrOwner_CreationtimeOrderByOwner_Owner_CreationtimeAsc(Date first,
+				Date second);
+
+		long countByOwner(ItemModel owner);
+	}
+}
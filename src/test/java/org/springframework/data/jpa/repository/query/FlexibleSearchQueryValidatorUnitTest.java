@@ -0,0 +1,196 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.jpa.repository.query;
+
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.core.model.type.ComposedTypeModel;
+import de.hybris.platform.servicelayer.exceptions.UnknownIdentifierException;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.type.TypeService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.hybris.repository.Query;
+import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Unit tests for {@link FlexibleSearchQueryValidator}.
+ *
+ * @author Kamill Sokol
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class FlexibleSearchQueryValidatorUnitTest {
+
+	@Mock
+	FlexibleSearchService flexibleSearchService;
+	@Mock
+	TypeService typeService;
+	@Mock
+	RepositoryMetadata metadata;
+	@Mock
+	ComposedTypeModel itemType;
+
+	FlexibleSearchQueryValidator validator = new FlexibleSearchQueryValidator();
+
+	@Before
+	public void setUp() {
+
+		when(typeService.getComposedTypeForCode(anyString())).thenThrow(new UnknownIdentifierException("unknown type"));
+		doReturn(itemType).when(typeService).getComposedTypeForCode("Item");
+		when(typeService.getAttributeDescriptor(eq(itemType), anyString())).thenThrow(
+				new UnknownIdentifierException("unknown attribute"));
+		doReturn(null).when(typeService).getAttributeDescriptor(itemType, "PK");
+		doReturn(null).when(typeService).getAttributeDescriptor(itemType, "owner");
+		doReturn(null).when(typeService).getAttributeDescriptor(itemType, "creationtime");
+		doReturn(null).when(typeService).getAttributeDescriptor(itemType, "name");
+	}
+
+	@Test
+	public void acceptsQueryMatchingTypesAndParameters() throws Exception {
+
+		validator.register(createQuery("findByOwner", ItemModel.class, Date.class));
+		validator.register(createQuery("findByCreationtime", Date.class, Pageable.class));
+		validator.validateRegisteredQueries(null);
+	}
+
+	@Test
+	public void acceptsAttributeReferenceWithColonAlias() throws Exception {
+		validate("findByColonAliasedOwner", ItemModel.class);
+	}
+
+	@Test
+	public void acceptsAttributeReferenceWithLanguageAndOuterJoinModifiers() throws Exception {
+		validate("findByLocalizedName", String.class);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnknownAttributeWithColonAlias() throws Exception {
+		validate("findByColonAliasedUnknownAttribute", Date.class);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnknownType() throws Exception {
+		validate("findFromUnknownType");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnknownAttribute() throws Exception {
+		validate("findByUnknownAttribute", Date.class);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnknownAlias() throws Exception {
+		validate("findByUnknownAlias", ItemModel.class);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsPositionalParameterWithoutMethodParameter() throws Exception {
+		validate("findByOwnerAndCreationtime", ItemModel.class);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNamedParameterWithoutMethodParameter() throws Exception {
+		validate("findByUnnamedOwner", ItemModel.class);
+	}
+
+	@Test
+	public void ignoresDerivedQueries() throws Exception {
+
+		validator.register(mock(PartTreeJpaQuery.class));
+		validator.validateRegisteredQueries(null);
+
+		verifyZeroInteractions(typeService);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void validatesQueriesInParallel() throws Exception {
+
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+		try {
+			validator.register(createQuery("findByOwner", ItemModel.class, Date.class));
+			validator.register(createQuery("findFromUnknownType"));
+			validator.validateRegisteredQueries(executorService);
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	private void validate(String methodName, Class<?>... parameterTypes) throws Exception {
+
+		validator.register(createQuery(methodName, parameterTypes));
+		validator.validateRegisteredQueries(null);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private SimpleJpaQuery createQuery(String methodName, Class<?>... parameterTypes) throws Exception {
+
+		Method method = SampleRepository.class.getMethod(methodName, parameterTypes);
+
+		when(metadata.getDomainType()).thenReturn((Class) ItemModel.class);
+		when(metadata.getReturnedDomainClass(method)).thenReturn((Class) ItemModel.class);
+
+		return new SimpleJpaQuery(new JpaQueryMethod(method, metadata, typeService), flexibleSearchService);
+	}
+
+	interface SampleRepository {
+
+		@Query("SELECT {i.PK} FROM {Item AS i} WHERE {i.owner} = ?owner AND {i.creationtime} > ?creationtime "
+				+ "AND {i.owner} <> ?session.user")
+		List<ItemModel> findByOwner(@Param("owner") ItemModel owner, @Param("creationtime") Date creationtime);
+
+		@Query("SELECT {PK} FROM {Item!} WHERE {creationtime} > ?1 ORDER BY {creationtime}")
+		Page<ItemModel> findByCreationtime(Date creationtime, Pageable pageable);
+
+		@Query("SELECT {u.PK} FROM {Unknown AS u}")
+		List<ItemModel> findFromUnknownType();
+
+		@Query("SELECT {i.PK} FROM {Item AS i} WHERE {i.bogus} > ?1")
+		List<ItemModel> findByUnknownAttribute(Date creationtime);
+
+		@Query("SELECT {i.PK} FROM {Item AS i} WHERE {i:owner} = ?1")
+		List<ItemModel> findByColonAliasedOwner(ItemModel owner);
+
+		@Query("SELECT {i.PK} FROM {Item AS i} WHERE {i.name[en]:o} = ?1")
+		List<ItemModel> findByLocalizedName(String name);
+
+		@Query("SELECT {i.PK} FROM {Item AS i} WHERE {i:bogus} > ?1")
+		List<ItemModel> findByColonAliasedUnknownAttribute(Date creationtime);
+
+		@Query("SELECT {i.PK} FROM {Item AS i} WHERE {x.owner} = ?1")
+		List<ItemModel> findByUnknownAlias(ItemModel owner);
+
+		@Query("SELECT {i.PK} FROM {Item AS i} WHERE {i.owner} = ?1 AND {i.creationtime} > ?2")
+		List<ItemModel> findByOwnerAndCreationtime(ItemModel owner);
+
+		@Query("SELECT {i.PK} FROM {Item AS i} WHERE {i.owner} = ?owner")
+		List<ItemModel> findByUnnamedOwner(ItemModel owner);
+	}
+}
@@ -0,0 +1,461 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.jpa.repository.query;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
+import de.hybris.platform.servicelayer.type.TypeService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.hybris.repository.GroupBy;
+import org.springframework.data.repository.core.RepositoryMetadata;
+
+/**
+ * Unit tests for {@link PartTreeJpaQuery}.
+ *
+ * @author Kamill Sokol
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PartTreeJpaQueryUnitTest {
+
+	@Mock
+	FlexibleSearchService flexibleSearchService;
+	@Mock
+	TypeService typeService;
+	@Mock
+	ModelService modelService;
+	@Mock
+	RepositoryMetadata metadata;
+	@Mock
+	SearchResult<Object> searchResult;
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void executesCountProjectionWithoutLoadingModels() throws Exception {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(3L));
+
+		Object result = createQuery("countByOwner", ItemModel.class).execute(new Object[] { new ItemModel() });
+
+		assertThat(result, is((Object) 3L));
+
+		FlexibleSearchQuery query = captureQuery();
+		assertThat(query.getQuery(), is("SELECT COUNT({x.PK}) FROM {Item AS x} WHERE {x.owner} = ?p0"));
+		assertThat(query.getResultClassList(), is((List) Arrays.asList(Long.class)));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void executesExistsProjectionAsSingleRowPkProbe() throws Exception {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(PK.fromLong(1)), Collections.emptyList());
+
+		PartTreeJpaQuery query = createQuery("existsByOwner", ItemModel.class);
+
+		assertThat(query.execute(new Object[] { new ItemModel() }), is((Object) true));
+		assertThat(query.execute(new Object[] { new ItemModel() }), is((Object) false));
+
+		FlexibleSearchQuery flexibleSearchQuery = captureQuery();
+		assertThat(flexibleSearchQuery.getQuery(), is("SELECT {x.PK} FROM {Item AS x} WHERE {x.owner} = ?p0"));
+		assertThat(flexibleSearchQuery.getResultClassList(), is((List) Arrays.asList(PK.class)));
+		assertThat(flexibleSearchQuery.getCount(), is(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsExistsProjectionNotReturningBoolean() throws Exception {
+		createQuery("existsByCreationtime", Date.class);
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void deletesMatchingModelsChunkByChunk() throws Exception {
+
+		ItemModel first = new ItemModel();
+		ItemModel second = new ItemModel();
+		ItemModel third = new ItemModel();
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(PK.fromLong(1), PK.fromLong(2)),
+				(List) Arrays.asList(PK.fromLong(3)));
+		when(modelService.get(PK.fromLong(1))).thenReturn(first);
+		when(modelService.get(PK.fromLong(2))).thenReturn(second);
+		when(modelService.get(PK.fromLong(3))).thenReturn(third);
+		when(modelService.isRemoved(any())).thenReturn(true);
+
+		Object result = createQuery("deleteByOwner", ItemModel.class).execute(new Object[] { new ItemModel() });
+
+		assertThat(result, is((Object) 3L));
+		verify(modelService).removeAll(Arrays.asList(first, second));
+		verify(modelService).removeAll(Arrays.asList(third));
+		verify(modelService).detach(first);
+		verify(modelService).detach(second);
+		verify(modelService).detach(third);
+
+		ArgumentCaptor<FlexibleSearchQuery> captor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService, times(2)).search(captor.capture());
+
+		FlexibleSearchQuery firstQuery = captor.getAllValues().get(0);
+		assertThat(firstQuery.getQuery(), is("SELECT {x.PK} FROM {Item AS x} WHERE {x.owner} = ?p0 ORDER BY {x.PK} ASC"));
+		assertThat(firstQuery.getResultClassList(), is((List) Arrays.asList(PK.class)));
+		assertThat(firstQuery.getCount(), is(2));
+
+		FlexibleSearchQuery secondQuery = captor.getAllValues().get(1);
+		assertThat(secondQuery.getQuery(), is("SELECT {x.PK} FROM {Item AS x} WHERE ({x.owner} = ?p0) "
+				+ "AND {x.PK} > ?lastSeen ORDER BY {x.PK} ASC"));
+		assertThat(secondQuery.getQueryParameters().get("lastSeen"), is((Object) PK.fromLong(2)));
+		assertThat(secondQuery.getStart(), is(0));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void convertsDeletedCountForIntReturningRemoveMethod() throws Exception {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Collections.emptyList());
+
+		Object result = createQuery("removeByCreationtime", Date.class).execute(new Object[] { new Date() });
+
+		assertThat(result, is((Object) 0));
+		verify(modelService, never()).removeAll(anyCollection());
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void countsOnlyModelsActuallyRemoved() throws Exception {
+
+		ItemModel first = new ItemModel();
+		ItemModel second = new ItemModel();
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(PK.fromLong(1), PK.fromLong(2)),
+				(List) Collections.emptyList());
+		when(modelService.get(PK.fromLong(1))).thenReturn(first);
+		when(modelService.get(PK.fromLong(2))).thenReturn(second);
+		when(modelService.isRemoved(first)).thenReturn(true);
+		when(modelService.isRemoved(second)).thenReturn(false);
+
+		Object result = createQuery("deleteByOwner", ItemModel.class).execute(new Object[] { new ItemModel() });
+
+		assertThat(result, is((Object) 1L));
+		verify(modelService, times(1)).removeAll(Arrays.asList(first, second));
+		verify(modelService).detach(second);
+
+		FlexibleSearchQuery lastQuery = captureQuery();
+		assertThat(lastQuery.getQueryParameters().get("lastSeen"), is((Object) PK.fromLong(2)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsDeleteMethodNotReturningCount() throws Exception {
+		createQuery("deleteByCreationtime", Date.class);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsDeleteMethodLimitedByFirst() throws Exception {
+		createQuery("deleteFirst10ByOwner", ItemModel.class);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsRemoveMethodLimitedByTop() throws Exception {
+		createQuery("removeTopByCreationtime", Date.class);
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void limitsResultsDeclaredByTopKeyword() throws Exception {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Collections.emptyList());
+
+		createQuery("findTop10ByOwner", ItemModel.class).execute(new Object[] { new ItemModel() });
+
+		FlexibleSearchQuery query = captureQuery();
+		assertThat(query.getQuery(), is("SELECT {x.PK} FROM {Item AS x} WHERE {x.owner} = ?p0"));
+		assertThat(query.getCount(), is(10));
+	}
+
+	@Test
+	public void returnsNoResultsForPageBeyondTopKeywordLimit() throws Exception {
+
+		Object result = createQuery("findTop10ByOwner", ItemModel.class, Pageable.class).execute(
+				new Object[] { new ItemModel(), new PageRequest(2, 10) });
+
+		assertThat(result, is((Object) Collections.emptyList()));
+		verify(flexibleSearchService, never()).search(any(FlexibleSearchQuery.class));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void cutsOffPageAtTopKeywordLimit() throws Exception {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Collections.emptyList());
+
+		createQuery("findTop10ByOwner", ItemModel.class, Pageable.class).execute(
+				new Object[] { new ItemModel(), new PageRequest(1, 7) });
+
+		FlexibleSearchQuery query = captureQuery();
+		assertThat(query.getStart(), is(7));
+		assertThat(query.getCount(), is(3));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void limitsSingleEntityLookupDeclaredByFirstKeywordToOneRow() throws Exception {
+
+		ItemModel model = new ItemModel();
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(model));
+
+		Object result = createQuery("findFirstByOwnerOrderByCreationtimeDesc", ItemModel.class).execute(
+				new Object[] { new ItemModel() });
+
+		assertThat(result, is((Object) model));
+		assertThat(captureQuery().getCount(), is(1));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void usesVariantPerCombinationOfNullArguments() throws Exception {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Collections.emptyList());
+
+		PartTreeJpaQuery query = createQuery("findByOwnerAndCreationtime", ItemModel.class, Date.class);
+		ItemModel owner = new ItemModel();
+		Date creationtime = new Date();
+
+		query.execute(new Object[] { null, creationtime });
+		query.execute(new Object[] { owner, creationtime });
+		query.execute(new Object[] { owner, null });
+		query.execute(new Object[] { null, creationtime });
+
+		ArgumentCaptor<FlexibleSearchQuery> captor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService, times(4)).search(captor.capture());
+		List<FlexibleSearchQuery> queries = captor.getAllValues();
+
+		String base = "SELECT {x.PK} FROM {Item AS x} WHERE ";
+		assertThat(queries.get(0).getQuery(), is(base + "{x.owner} IS NULL AND {x.creationtime} = ?p1"));
+		assertThat(queries.get(1).getQuery(), is(base + "{x.owner} = ?p0 AND {x.creationtime} = ?p1"));
+		assertThat(queries.get(2).getQuery(), is(base + "{x.owner} = ?p0 AND {x.creationtime} IS NULL"));
+		assertThat(queries.get(3).getQuery(), is(queries.get(0).getQuery()));
+		assertThat(queries.get(3).getQueryParameters().get("p1"), is((Object) creationtime));
+		assertThat(queries.get(3).getQueryParameters().containsKey("p0"), is(false));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void appendsDynamicSortOfPageableToContentQueryOnly() throws Exception {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(5L), (List) Collections.emptyList());
+
+		PartTreeJpaQuery query = createQuery("findByOwner", ItemModel.class, Pageable.class);
+		Pageable pageable = new PageRequest(1, 2, new Sort(Direction.DESC, "creationtime"));
+
+		Page<?> page = (Page<?>) query.execute(new Object[] { new ItemModel(), pageable });
+
+		assertThat(page.getTotalElements(), is(5L));
+
+		ArgumentCaptor<FlexibleSearchQuery> captor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService, times(2)).search(captor.capture());
+
+		FlexibleSearchQuery countQuery = captor.getAllValues().get(0);
+		assertThat(countQuery.getQuery(), is("SELECT COUNT({x.PK}) FROM {Item AS x} WHERE {x.owner} = ?p0"));
+
+		FlexibleSearchQuery contentQuery = captor.getAllValues().get(1);
+		assertThat(contentQuery.getQuery(),
+				is("SELECT {x.PK} FROM {Item AS x} WHERE {x.owner} = ?p0 ORDER BY {x.creationtime} DESC"));
+		assertThat(contentQuery.getStart(), is(2));
+		assertThat(contentQuery.getCount(), is(2));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void joinsNestedPropertyOfDynamicSort() throws Exception {
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Collections.emptyList());
+
+		PartTreeJpaQuery query = createQuery("findByOwner", ItemModel.class, Sort.class);
+		Sort sort = new Sort(Direction.DESC, "owner.creationtime");
+
+		query.execute(new Object[] { new ItemModel(), sort });
+		assertThat(captureQuery().getQuery(), is("SELECT {x.PK} FROM {Item AS x LEFT JOIN Item AS j0 ON {x.owner} = {j0.PK}}"
+				+ " WHERE {x.owner} = ?p0 ORDER BY {j0.creationtime} DESC"));
+
+		query.execute(new Object[] { null, sort });
+		assertThat(captureQuery().getQuery(), is("SELECT {x.PK} FROM {Item AS x LEFT JOIN Item AS j0 ON {x.owner} = {j0.PK}}"
+				+ " WHERE {x.owner} IS NULL ORDER BY {j0.creationtime} DESC"));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void computesAggregateOfAttributeInDatabase() throws Exception {
+
+		Date modifiedtime = new Date();
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn((List) Arrays.asList(modifiedtime));
+
+		Object result = createQuery("maxModifiedtimeByOwner", ItemModel.class).execute(new Object[] { new ItemModel() });
+
+		assertThat(result, is((Object) modifiedtime));
+
+		FlexibleSearchQuery query = captureQuery();
+		assertThat(query.getQuery(), is("SELECT MAX({x.modifiedtime}) FROM {Item AS x} WHERE {x.owner} = ?p0"));
+		assertThat(query.getResultClassList(), is((List) Arrays.asList(Date.class)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsAggregateMethodNotReturningScalar() throws Exception {
+		createQuery("minCreationtimeByOwner", ItemModel.class);
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void countsItemsPerGroupInDatabase() throws Exception {
+
+		ItemModel first = new ItemModel();
+		ItemModel second = new ItemModel();
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn(
+				(List) Arrays.asList(Arrays.asList(first, 2L), Arrays.asList(second, 1L)));
+
+		Map<?, ?> result = (Map<?, ?>) createQuery("countByCreationtimeAfter", Date.class).execute(
+				new Object[] { new Date() });
+
+		assertThat(result.size(), is(2));
+		assertThat(result.get(first), is((Object) 2L));
+		assertThat(result.get(second), is((Object) 1L));
+
+		FlexibleSearchQuery query = captureQuery();
+		assertThat(query.getQuery(), is("SELECT {x.owner}, COUNT({x.PK}) FROM {Item AS x} WHERE {x.creationtime} > ?p0"
+				+ " GROUP BY {x.owner}"));
+		assertThat(query.getResultClassList(), is((List) Arrays.asList(ItemModel.class, Long.class)));
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void groupsPksWithoutLoadingModels() throws Exception {
+
+		ItemModel first = new ItemModel();
+		ItemModel second = new ItemModel();
+
+		when(flexibleSearchService.search(any(FlexibleSearchQuery.class))).thenReturn((SearchResult) searchResult);
+		when(searchResult.getResult()).thenReturn(
+				(List) Arrays.asList(Arrays.asList(first, PK.fromLong(1)), Arrays.asList(second, PK.fromLong(2)),
+						Arrays.asList(first, PK.fromLong(3))));
+
+		Map<?, ?> result = (Map<?, ?>) createQuery("findByCreationtimeAfter", Date.class).execute(
+				new Object[] { new Date() });
+
+		assertThat(result.get(first), is((Object) Arrays.asList(PK.fromLong(1), PK.fromLong(3))));
+		assertThat(result.get(second), is((Object) Arrays.asList(PK.fromLong(2))));
+
+		FlexibleSearchQuery query = captureQuery();
+		assertThat(query.getQuery(), is("SELECT {x.owner}, {x.PK} FROM {Item AS x} WHERE {x.creationtime} > ?p0"));
+		assertThat(query.getResultClassList(), is((List) Arrays.asList(ItemModel.class, PK.class)));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private PartTreeJpaQuery createQuery(String methodName, Class<?>... parameterTypes) throws Exception {
+
+		Method method = SampleRepository.class.getMethod(methodName, parameterTypes);
+
+		when(metadata.getDomainType()).thenReturn((Class) ItemModel.class);
+		when(metadata.getReturnedDomainClass(method)).thenReturn((Class) method.getReturnType());
+
+		return new PartTreeJpaQuery(new JpaQueryMethod(method, metadata, typeService), flexibleSearchService,
+				modelService, 2);
+	}
+
+	private FlexibleSearchQuery captureQuery() {
+
+		ArgumentCaptor<FlexibleSearchQuery> captor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService, atLeastOnce()).search(captor.capture());
+
+		return captor.getValue();
+	}
+
+	interface SampleRepository {
+
+		long countByOwner(ItemModel owner);
+
+		boolean existsByOwner(ItemModel owner);
+
+		int existsByCreationtime(Date creationtime);
+
+		long deleteByOwner(ItemModel owner);
+
+		int removeByCreationtime(Date creationtime);
+
+		List<ItemModel> deleteByCreationtime(Date creationtime);
+
+		long deleteFirst10ByOwner(ItemModel owner);
+
+		long removeTopByCreationtime(Date creationtime);
+
+		List<ItemModel> findTop10ByOwner(ItemModel owner);
+
+		List<ItemModel> findTop10ByOwner(ItemModel owner, Pageable pageable);
+
+		List<ItemModel> findByOwnerAndCreationtime(ItemModel owner, Date creationtime);
+
+		Page<ItemModel> findByOwner(ItemModel owner, Pageable pageable);
+
+		List<ItemModel> findByOwner(ItemModel owner, Sort sort);
+
+		Date maxModifiedtimeByOwner(ItemModel owner);
+
+		List<Date> minCreationtimeByOwner(ItemModel owner);
+
+		@GroupBy("owner")
+		Map<ItemModel, Long> countByCreationtimeAfter(Date creationtime);
+
+		@GroupBy("owner")
+		Map<ItemModel, List<PK>> findByCreationtimeAfter(Date creationtime);
+
+		ItemModel findFirstByOwnerOrderByCreationtimeDesc(ItemModel owner);
+	}
+}
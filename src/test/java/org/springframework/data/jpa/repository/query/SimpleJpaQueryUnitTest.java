@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.jpa.repository.query;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.type.TypeService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.hybris.repository.Query;
+import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Unit tests for {@link SimpleJpaQuery}.
+ *
+ * @author Kamill Sokol
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SimpleJpaQueryUnitTest {
+
+	@Mock
+	FlexibleSearchService flexibleSearchService;
+	@Mock
+	TypeService typeService;
+	@Mock
+	RepositoryMetadata metadata;
+
+	@Test
+	public void bindsDeclaredCountQueryWithItsOwnParameterBindings() throws Exception {
+
+		ItemModel owner = new ItemModel();
+
+		FlexibleSearchQuery countQuery = createQuery("findByOwnerAndCode", ItemModel.class, String.class,
+				Pageable.class).createCountQuery(new Object[] { owner, "foo", new PageRequest(0, 10) });
+
+		assertThat(countQuery.getQuery(), is("SELECT COUNT({i.PK}) FROM {Item AS i} WHERE {i.code} LIKE ?code"));
+		assertThat(countQuery.getQueryParameters(), is(Collections.<String, Object> singletonMap("code", "%foo")));
+	}
+
+	@Test
+	public void bindsQueryWithItsOwnParameterBindings() throws Exception {
+
+		ItemModel owner = new ItemModel();
+
+		FlexibleSearchQuery query = createQuery("findByOwnerAndCode", ItemModel.class, String.class, Pageable.class)
+				.createQuery(new Object[] { owner, "foo", new PageRequest(0, 10) });
+
+		assertThat(query.getQuery(),
+				is("SELECT {i.PK} FROM {Item AS i} WHERE {i.owner} = ?owner AND {i.code} LIKE ?code"));
+		assertThat(query.getQueryParameters().get("owner"), is((Object) owner));
+		assertThat(query.getQueryParameters().get("code"), is((Object) "foo%"));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private SimpleJpaQuery createQuery(String methodName, Class<?>... parameterTypes) throws Exception {
+
+		Method method = SampleRepository.class.getMethod(methodName, parameterTypes);
+
+		when(metadata.getDomainType()).thenReturn((Class) ItemModel.class);
+		when(metadata.getReturnedDomainClass(method)).thenReturn((Class) ItemModel.class);
+
+		return new SimpleJpaQuery(new JpaQueryMethod(method, metadata, typeService), flexibleSearchService);
+	}
+
+	interface SampleRepository {
+
+		@Query(value = "SELECT {i.PK} FROM {Item AS i} WHERE {i.owner} = ?owner AND {i.code} LIKE ?code%",
+				countQuery = "SELECT COUNT({i.PK}) FROM {Item AS i} WHERE {i.code} LIKE %?code")
+		Page<ItemModel> findByOwnerAndCode(@Param("owner") ItemModel owner, @Param("code") String code,
+				Pageable pageable);
+	}
+}
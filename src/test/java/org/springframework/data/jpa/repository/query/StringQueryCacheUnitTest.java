@@ -0,0 +1,74 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.jpa.repository.query;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import de.hybris.platform.core.model.ItemModel;
+import org.junit.Test;
+import org.springframework.data.hybris.repository.core.HybrisEntityMetadata;
+
+/**
+ * Unit tests for {@link StringQueryCache}.
+ * 
+ * @author Kamill Sokol
+ */
+public class StringQueryCacheUnitTest {
+
+	static final HybrisEntityMetadata<ItemModel> METADATA = new HybrisEntityMetadata<ItemModel>(ItemModel.class);
+
+	StringQueryCache cache = StringQueryCache.INSTANCE;
+
+	@Test
+	public void sharesParseOfIdenticalQueries() {
+
+		StringQuery query = cache.getQuery("SELECT {i.PK} FROM {Item AS i} WHERE {i.code} = ?code", METADATA);
+
+		assertThat(cache.getQuery(new String("SELECT {i.PK} FROM {Item AS i} WHERE {i.code} = ?code"), METADATA),
+				is(sameInstance(query)));
+		assertThat(query.getAlias(), is("i"));
+	}
+
+	@Test
+	public void sharesDerivedCountQuery() {
+
+		StringQuery query = cache.getQuery("SELECT {i.PK} FROM {Item AS i} ORDER BY {i.creationtime}", METADATA);
+		StringQuery countQuery = cache.getCountQuery(query, null);
+
+		assertThat(countQuery.getQueryString(), is("SELECT COUNT({i.PK}) FROM {Item AS i}"));
+		assertThat(cache.getCountQuery(query, null), is(sameInstance(countQuery)));
+	}
+
+	@Test
+	public void keepsLikeBindingsInDerivedCountQuery() {
+
+		StringQuery query = cache.getQuery("SELECT {i.PK} FROM {Item AS i} WHERE {i.code} LIKE ?code%", METADATA);
+		StringQuery countQuery = cache.getCountQuery(query, null);
+
+		assertThat(countQuery.getQueryString(), is("SELECT COUNT({i.PK}) FROM {Item AS i} WHERE {i.code} LIKE ?code"));
+		assertThat(countQuery.getBindingFor("code"), is(query.getBindingFor("code")));
+	}
+
+	@Test
+	public void evaluatesTemplateExpressionsOfCachedQuery() {
+
+		StringQuery query = cache.getQuery("SELECT {i.PK} FROM {#{#entityName} AS i}", METADATA);
+
+		assertThat(query.getQueryString(), is("SELECT {i.PK} FROM {Item AS i}"));
+		assertThat(cache.getQuery("SELECT {i.PK} FROM {#{#entityName} AS i}", METADATA), is(sameInstance(query)));
+	}
+}